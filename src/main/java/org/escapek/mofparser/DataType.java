@@ -18,6 +18,10 @@
  */
 package org.escapek.mofparser;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Enumerates supported data types. See <a href="http://www.dmtf.org/standards/published_documents/DSP0004V2.3_final.pdf">
  * CIM specifications</a> for details.
@@ -40,4 +44,31 @@ public enum DataType {
 	DATETIME,
 	REFERENCE,
 	CHAR16;
+
+	private static final Map<String, DataType> NAMES = new HashMap<String, DataType>();
+
+	static {
+		for(DataType type : values()) {
+			NAMES.put(type.toString(), type);
+			NAMES.put(type.toString().toLowerCase(Locale.ENGLISH), type);
+		}
+	}
+
+	/**
+	 * Get the data type with the given name, ignoring case. Upper and lower case names, as written
+	 * by type declarations and MOF documents, are found without comparing every type name.
+	 * @param name data type name
+	 * @return the data type, or null if the name isn't a supported data type
+	 */
+	public static DataType forName(String name) {
+		DataType type = NAMES.get(name);
+		if(type == null && name != null) {
+			for(DataType supportedType : values()) {
+				if(name.equalsIgnoreCase(supportedType.toString())) {
+					return supportedType;
+				}
+			}
+		}
+		return type;
+	}
 }
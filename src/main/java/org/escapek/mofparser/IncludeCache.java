@@ -0,0 +1,165 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.escapek.mofparser.compiled.CompiledSchema;
+import org.escapek.mofparser.compiled.CompiledSchemaWriter;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.RecordingHandler;
+
+/**
+ * Cache of parsed included files, shared by parsers. Entries are keyed by the included file
+ * identifier, its charset and the SHA-1 hash of its content, so a modified file is parsed again.
+ * Each entry holds the declarations of the file as a {@link CompiledSchema}, which are decoded
+ * again each time the file is included, so handlers receive new declarations they can modify.
+ * Files containing errors are not cached. Least recently used entries are evicted when the cache is full.
+ * This class is thread-safe.
+ * @author nico
+ *
+ */
+public class IncludeCache {
+	/**
+	 * Default maximum number of cached files.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	private Map<String, CompiledSchema> entries;
+	private int hits;
+	private int misses;
+
+	public IncludeCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries maximum number of cached files
+	 */
+	public IncludeCache(final int maxEntries) {
+		entries = new LinkedHashMap<String, CompiledSchema>(16, 0.75f, true) {
+			private static final long serialVersionUID = -1729618262383504875L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, CompiledSchema> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Compute the cache key of an included file.
+	 * @param source included file
+	 * @param content included file content
+	 * @return cache key
+	 */
+	public String key(IncludeSource source, byte[] content) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = digest.digest(content);
+		StringBuilder key = new StringBuilder(source.getId());
+		key.append('|').append(source.getCharset().name()).append('|');
+		for(byte b : hash) {
+			key.append(Character.forDigit((b >> 4) & 0xF, 16));
+			key.append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Get the declarations of an included file.
+	 * @param key cache key
+	 * @return compiled declarations, or null if the file isn't cached
+	 */
+	public synchronized CompiledSchema get(String key) {
+		CompiledSchema schema = entries.get(key);
+		if(schema == null) {
+			misses++;
+		}
+		else {
+			hits++;
+		}
+		return schema;
+	}
+
+	/**
+	 * Store the events produced by parsing an included file. Declarations are compiled, so they
+	 * must not have been modified since they were parsed. Events containing errors are not stored.
+	 * @param key cache key
+	 * @param events recorded events
+	 */
+	public void put(String key, RecordingHandler events) {
+		CompiledSchemaWriter writer = new CompiledSchemaWriter();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CompiledSchema schema;
+		try {
+			events.replay(writer);
+			writer.write(out);
+			schema = new CompiledSchema(ByteBuffer.wrap(out.toByteArray()));
+		}
+		catch (MOFParserException e) {
+			//Files containing errors are parsed again to report them
+			return;
+		}
+		catch (IOException e) {
+			return;
+		}
+		synchronized(this) {
+			entries.put(key, schema);
+		}
+	}
+
+	/**
+	 * Return the number of cached files.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return the number of lookups which found a cached file.
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Return the number of lookups which didn't find a cached file.
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Remove all cached files.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+}
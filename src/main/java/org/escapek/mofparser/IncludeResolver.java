@@ -0,0 +1,40 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.IOException;
+
+/**
+ * Interface defining methods that must be implemented to resolve files included by
+ * <code>#pragma include</code> directives. When a resolver is given to MOFParser, included
+ * files are parsed inline: their events are sent to the handler right after the include directive.
+ * @author nico
+ *
+ */
+public interface IncludeResolver {
+	/**
+	 * Find a file included by a <code>#pragma include</code> directive.
+	 * @param name file name given to the include directive
+	 * @param parent source of the file containing the directive, or null if the directive was
+	 * read from a document with no known location.
+	 * @return the included source, or null if it can't be found
+	 * @throws IOException if an error occurs while looking for the file
+	 */
+	public IncludeSource resolve(String name, IncludeSource parent) throws IOException;
+}
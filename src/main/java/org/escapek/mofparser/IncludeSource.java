@@ -0,0 +1,119 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.Charset;
+
+/**
+ * Location of a MOF document which can be included by other documents.
+ * Two sources with the same identifier are the same document.
+ * @author nico
+ *
+ */
+public class IncludeSource {
+	private String id;
+	private URL url;
+	private Charset charset;
+
+	/**
+	 * @param id unique document identifier
+	 * @param url document location
+	 * @param charset charset used to decode document content
+	 */
+	public IncludeSource(String id, URL url, Charset charset) {
+		this.id = id;
+		this.url = url;
+		this.charset = charset;
+	}
+
+	/**
+	 * Build a source for a file. The file canonical path is used as identifier.
+	 * @param file MOF file
+	 * @param charset charset used to decode file content
+	 * @return file source
+	 * @throws IOException if the canonical path of the file can't be computed
+	 */
+	public static IncludeSource forFile(File file, Charset charset) throws IOException {
+		File canonicalFile = file.getCanonicalFile();
+		return new IncludeSource(canonicalFile.getPath(), canonicalFile.toURI().toURL(), charset);
+	}
+
+	/**
+	 * Build a source for an URL. The URL external form is used as identifier.
+	 * @param url MOF document URL
+	 * @param charset charset used to decode document content
+	 * @return URL source
+	 */
+	public static IncludeSource forURL(URL url, Charset charset) {
+		return new IncludeSource(url.toExternalForm(), url, charset);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public URL getURL() {
+		return url;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Open a reader on the document content.
+	 * @return document reader
+	 * @throws IOException if the document can't be opened
+	 */
+	public Reader openReader() throws IOException {
+		return new InputStreamReader(url.openStream(), charset);
+	}
+
+	/**
+	 * Read the whole document content.
+	 * @return document bytes
+	 * @throws IOException if the document can't be read
+	 */
+	public byte[] readContent() throws IOException {
+		InputStream in = url.openStream();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int numRead;
+			while((numRead = in.read(buf)) != -1) {
+				out.write(buf, 0, numRead);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	public String toString() {
+		return id;
+	}
+}
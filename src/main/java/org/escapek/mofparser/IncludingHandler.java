@@ -0,0 +1,221 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+import org.escapek.mofparser.compiled.CompiledSchema;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.RecordingHandler;
+
+/**
+ * Handler parsing included files inline, before forwarding events to the user handler.
+ * An included file is parsed only once per compilation, and include cycles are reported as errors.
+ * When an include cache is set, declarations of included files are taken from the cache.
+ * @author nico
+ *
+ */
+class IncludingHandler implements IContentHandler {
+	private MOFParser parser;
+	private IContentHandler handler;
+	private IncludeResolver resolver;
+	//Identifiers of every document included so far
+	private Set<String> included;
+	//Documents being parsed, from the main document to the current included file
+	private LinkedList<IncludeSource> stack;
+
+	/**
+	 * Unchecked wrapper of exceptions thrown while parsing an included file, as 
+	 * {@link IContentHandler#include(String)} can't throw a {@link MOFParserException}.
+	 */
+	static class IncludeException extends RuntimeException {
+		private static final long serialVersionUID = 2975215624367810934L;
+
+		IncludeException(MOFParserException cause) {
+			super(cause);
+		}
+
+		MOFParserException getException() {
+			return (MOFParserException)getCause();
+		}
+	}
+
+	/**
+	 * @param document source of the main document, or null if unknown
+	 */
+	IncludingHandler(MOFParser parser, IContentHandler handler, IncludeResolver resolver, IncludeSource document) {
+		this.parser = parser;
+		this.handler = handler;
+		this.resolver = resolver;
+		included = new HashSet<String>();
+		stack = new LinkedList<IncludeSource>();
+		if(document != null) {
+			included.add(document.getId());
+			stack.add(document);
+		}
+	}
+
+	public void include(String name) {
+		handler.include(name);
+		try {
+			parseInclude(name);
+		}
+		catch (MOFParserException e) {
+			throw new IncludeException(e);
+		}
+	}
+
+	private void parseInclude(String name) throws MOFParserException {
+		IncludeSource source;
+		try {
+			source = resolver.resolve(name, stack.isEmpty() ? null : stack.getLast());
+		}
+		catch (IOException e) {
+			handler.error(new MOFParserException(MOFParserException.INCLUDE_READ_ERROR, name, e));
+			return;
+		}
+		if(source == null) {
+			handler.error(new MOFParserException(MOFParserException.INCLUDE_NOT_FOUND, name));
+			return;
+		}
+		for(IncludeSource parent : stack) {
+			if(parent.getId().equals(source.getId())) {
+				handler.error(new MOFParserException(MOFParserException.INCLUDE_CYCLE, name));
+				return;
+			}
+		}
+		if(!included.add(source.getId())) {
+			//Already included in this compilation
+			return;
+		}
+		stack.addLast(source);
+		try {
+			IncludeCache cache = parser.getIncludeCache();
+			if(cache == null) {
+				Reader reader = source.openReader();
+				try {
+					parser.parseIncluded(reader, this);
+				}
+				finally {
+					reader.close();
+				}
+			}
+			else {
+				byte[] content = source.readContent();
+				String key = cache.key(source, content);
+				CompiledSchema schema = cache.get(key);
+				//Included files of the cached file are resolved when declarations are replayed
+				if(schema == null) {
+					RecordingHandler events = new RecordingHandler(false);
+					parser.parseIncluded(new InputStreamReader(new ByteArrayInputStream(content), source.getCharset()), events);
+					//Compiled before the handler can modify declarations
+					cache.put(key, events);
+					events.replay(this);
+				}
+				else {
+					schema.replayDeclarations(this);
+				}
+			}
+		}
+		catch (IOException e) {
+			handler.error(new MOFParserException(MOFParserException.INCLUDE_READ_ERROR, name, e));
+		}
+		finally {
+			stack.removeLast();
+		}
+	}
+
+	public void startDocument() throws MOFParserException {
+		handler.startDocument();
+	}
+
+	public void endDocument() throws MOFParserException {
+		handler.endDocument();
+	}
+
+	public void error(MOFParserException ex) throws MOFParserException {
+		handler.error(ex);
+	}
+
+	public void startProduction(Production productionType) throws MOFParserException {
+		handler.startProduction(productionType);
+	}
+
+	public void endProduction() throws MOFParserException {
+		handler.endProduction();
+	}
+
+	public void startCompilerDirective() throws MOFParserException {
+		handler.startCompilerDirective();
+	}
+
+	public void compilerDirective(PragmaDecl decl) throws MOFParserException {
+		handler.compilerDirective(decl);
+	}
+
+	public void endCompilerDirective() throws MOFParserException {
+		handler.endCompilerDirective();
+	}
+
+	public void startQualifierDeclaration() throws MOFParserException {
+		handler.startQualifierDeclaration();
+	}
+
+	public void qualifierDeclaration(QualifierDecl decl) throws MOFParserException {
+		handler.qualifierDeclaration(decl);
+	}
+
+	public void endQualifierDeclaration() throws MOFParserException {
+		handler.endQualifierDeclaration();
+	}
+
+	public void startClassDeclaration() throws MOFParserException {
+		handler.startClassDeclaration();
+	}
+
+	public void classDeclaration(ClassDecl decl) throws MOFParserException {
+		handler.classDeclaration(decl);
+	}
+
+	public void endClassDeclaration() throws MOFParserException {
+		handler.endClassDeclaration();
+	}
+
+	public void startInstanceDeclaration() throws MOFParserException {
+		handler.startInstanceDeclaration();
+	}
+
+	public void instanceDeclaration(InstDecl decl) throws MOFParserException {
+		handler.instanceDeclaration(decl);
+	}
+
+	public void endInstanceDeclaration() throws MOFParserException {
+		handler.endInstanceDeclaration();
+	}
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.antlr.stringtemplate.StringTemplate;
+import org.antlr.stringtemplate.StringTemplateGroup;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.internal.StringEscapes;
+
+/**
+ * Generates MOF syntax from declarations.
+ * Templates are loaded and parsed once, when the generator is created. Each generation works on
+ * a fresh instance of the loaded template, so a generator can be shared between threads.
+ * @author nico
+ *
+ */
+public class MOFGenerator {
+	private static final String TEMPLATES = "org/escapek/mofparser/internal/templates/";
+
+	private final StringTemplate headerTemplate;
+	private final StringTemplate pragmaTemplate;
+	private final StringTemplate qualifierTemplate;
+	private final StringTemplate classTemplate;
+	private final StringTemplate instanceTemplate;
+	private final ThreadLocal<ValueFormatter> formatters = new ThreadLocal<ValueFormatter>() {
+		@Override
+		protected ValueFormatter initialValue() {
+			return new ValueFormatter();
+		}
+	};
+
+	private static class DefaultHolder {
+		static final MOFGenerator INSTANCE = new MOFGenerator();
+	}
+
+	/**
+	 * Create a generator and load its templates.
+	 */
+	public MOFGenerator() {
+		StringTemplateGroup group = new StringTemplateGroup("group");
+		headerTemplate = group.getInstanceOf(TEMPLATES + "header");
+		pragmaTemplate = group.getInstanceOf(TEMPLATES + "pragmaDecl");
+		qualifierTemplate = group.getInstanceOf(TEMPLATES + "qualifierDecl");
+		classTemplate = group.getInstanceOf(TEMPLATES + "classDecl");
+		instanceTemplate = group.getInstanceOf(TEMPLATES + "instDecl");
+	}
+
+	/**
+	 * Get the generator shared by {@link MOFParser} instances.
+	 * @return shared generator
+	 */
+	public static MOFGenerator getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * Generate MOF header comment
+	 * @return a String containing generator comments
+	 */
+	public String generateHeader() {
+		StringTemplate template = headerTemplate.getInstanceOf();
+		template.setAttribute("date", new Date());
+		return template.toString();
+	}
+
+	/**
+	 * Generate a string representing a value declaration.
+	 * @param values List of values
+	 * @param type expected value type
+	 * @return generated string content
+	 * @see ValueFormatter
+	 */
+	public String generateValue(List<String> values, TypeDecl type) {
+		return formatters.get().format(values, type);
+	}
+
+	/**
+	 * Generate MOF corresponding to a compiler directive declaration
+	 * @param decl compiler directive to generate
+	 * @return generated mof.
+	 */
+	public String generateMOF(PragmaDecl decl) {
+		StringTemplate template = pragmaTemplate.getInstanceOf();
+		template.setAttribute("directive", decl.directive.toString());
+		if(decl.parameter != null) {
+			template.setAttribute("param", StringEscapes.encode(decl.parameter));
+		}
+		template.setAttribute("header", generateHeader());
+		return template.toString();
+	}
+
+	/**
+	 * Generate MOF corresponding to a qualifier declaration
+	 * @param decl qualifier declaration to generate
+	 * @return generated mof.
+	 */
+	public String generateMOF(QualifierDecl decl) {
+		StringTemplate template = qualifierTemplate.getInstanceOf();
+		template.setAttribute("header", generateHeader());
+		template.setAttribute("qualifierName", decl.name);
+		template.setAttribute("dataType", decl.type.name);
+		template.setAttribute("isarray", decl.type.isArray);
+		String defaultValue = null;
+		defaultValue = generateValue(decl.defaultValue, decl.type);
+		if(defaultValue != null) {
+			template.setAttribute("defaultValue", defaultValue);
+		}
+		template.setAttribute("scopes", decl.scopes);
+		template.setAttribute("flavors", decl.flavors);
+		if(decl.type.arraySize > 0) {
+			template.setAttribute("array", decl.type.arraySize);
+		}
+		
+		return template.toString();
+	}
+	
+	/**
+	 * Generate MOF corresponding to a class declaration
+	 * @param decl class declaration to generate
+	 * @return generated mof.
+	 */
+	public String generateMOF(ClassDecl decl) {
+		StringTemplate template = classTemplate.getInstanceOf();
+		template.setAttribute("header", generateHeader());
+		List<Map<String, String>> qualifiers = new ArrayList<Map<String, String>>();
+		for(Qualifier q : decl.qualifiers) {
+			HashMap<String, String> map = new HashMap<String, String>();
+			map.put("name", q.name);
+			map.put("parameter", formatters.get().formatParameter(q));
+			qualifiers.add(map);
+		}
+		template.setAttribute("qualifiers", qualifiers);
+		template.setAttribute("className", decl.name);
+		template.setAttribute("parentClass", decl.parentClass);
+
+		List<Map<String, Object>> properties = new ArrayList<Map<String, Object>>();
+		for(PropertyDecl p : decl.properties) {
+			HashMap<String, Object> map = new HashMap<String, Object>();
+			map.put("name", p.name);
+			map.put("type", p.type.name);
+			
+			List<Map<String, String>> pq = new ArrayList<Map<String, String>>();
+			for(Qualifier q : p.qualifiers) {
+				HashMap<String, String> qm = new HashMap<String, String>();
+				qm.put("qname", q.name);
+				qm.put("qparameter", formatters.get().formatParameter(q));
+				pq.add(qm);
+			}
+			map.put("qualifiers", pq);
+			properties.add(map);
+		}
+
+		template.setAttribute("properties", properties);
+		
+		return template.toString();
+	}
+	
+	/**
+	 * Generate MOF corresponding to an instance declaration
+	 * @param decl instance declaration to generate
+	 * @return generated mof.
+	 */
+	public String generateMOF(InstDecl decl) {
+		StringTemplate template = instanceTemplate.getInstanceOf();
+		template.setAttribute("header", generateHeader());
+		template.setAttribute("className", decl.className);
+		template.setAttribute("alias", decl.alias);
+
+		List<Map<String, Object>> properties = new ArrayList<Map<String, Object>>();
+		for(InstancePropertyDecl p : decl.properties) {
+			HashMap<String, Object> map = new HashMap<String, Object>();
+			map.put("name", p.name);
+			String value = generateValue(p.value, p.type);
+			if(!value.equalsIgnoreCase("null")) {
+				map.put("value", value);
+			}
+			properties.add(map);
+		}
+		template.setAttribute("properties", properties);
+		return template.toString();
+	}
+}
@@ -18,21 +18,31 @@
  */
 package org.escapek.mofparser;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.CharStream;
 import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
 import org.antlr.runtime.tree.CommonTree;
-import org.antlr.stringtemplate.StringTemplate;
-import org.antlr.stringtemplate.StringTemplateGroup;
+import org.escapek.mofparser.compiled.CompiledSchema;
+import org.escapek.mofparser.compiled.CompiledSchemaWriter;
 import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.FoldedName;
 import org.escapek.mofparser.decl.InstDecl;
 import org.escapek.mofparser.decl.InstancePropertyDecl;
 import org.escapek.mofparser.decl.PragmaDecl;
@@ -40,9 +50,20 @@ import org.escapek.mofparser.decl.PropertyDecl;
 import org.escapek.mofparser.decl.Qualifier;
 import org.escapek.mofparser.decl.QualifierDecl;
 import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.decl.Values;
 import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.RecordingHandler;
+import org.escapek.mofparser.internal.CaseInsensitiveMappedStream;
+import org.escapek.mofparser.internal.CaseInsensitiveReaderStream;
 import org.escapek.mofparser.internal.CaseInsensitiveStringStream;
-import org.escapek.mofparser.internal.cim23Lexer;
+import org.escapek.mofparser.internal.CaseInsensitiveWindowedStream;
+import org.escapek.mofparser.internal.DeclBuilder;
+import org.escapek.mofparser.internal.DirectParser;
+import org.escapek.mofparser.internal.MOFScanner;
+import org.escapek.mofparser.internal.ProductionSplitter;
+import org.escapek.mofparser.internal.RecognizerPool;
+import org.escapek.mofparser.internal.StreamingLexer;
+import org.escapek.mofparser.internal.WindowedTokenStream;
 import org.escapek.mofparser.internal.cim23Parser;
 
 
@@ -53,53 +74,210 @@ import org.escapek.mofparser.internal.cim23Parser;
  * called by the parser when it detects some MOF language specification, so the handler can easily
  * manage the data. 
  * MOFParser also provides some basic checks on MOF syntax which can be intercepted by the handler.
+ * Once configured, a MOFParser instance can be shared between threads. Parse methods are reentrant,
+ * so a handler can parse included files with the same instance.
  * @author nico
  *
  */
 public class MOFParser {
-	private static String PRAGMA_DECL 		= "CompilerDirective";
-	private static String PRAGMA_INCLUDE 	= "include";
-	private static String QUALIFIER_DECL 	= "qualifier";
-	private static String CLASS_DECL 		= "class";
-	private static String TYPE				= "Type";
-	private static String ARRAY				= "Array";
-	private static String SCOPE				= "Scope";
-	private static String FLAVOR			= "Flavor";
-	private static String DEFAULT			= "Default";
-	private static String QUALIFIERS		= "Qualifiers";
-	private static String SUPERCLASS		= "SuperClass";
-	private static String REFERENCE 		= "Reference";
-	private static String PROPERTY			= "Property";
-	private static String ALIAS				= "Alias";
-	private static String VALUE				= "Value";
+	private static final int PRAGMA_DECL	= cim23Parser.CompilerDirective;
+	private static final int QUALIFIER_DECL	= cim23Parser.QUALIFIER;
+	private static final int CLASS_DECL		= cim23Parser.Class;
+	private static final int INSTANCE_DECL	= cim23Parser.Instance;
+	private static final int TYPE			= cim23Parser.Type;
+	private static final int ARRAY			= cim23Parser.Array;
+	private static final int SCOPE			= cim23Parser.SCOPE;
+	private static final int FLAVOR			= cim23Parser.FLAVOR;
+	private static final int DEFAULT		= cim23Parser.Default;
+	private static final int QUALIFIERS		= cim23Parser.Qualifiers;
+	private static final int SUPERCLASS		= cim23Parser.SuperClass;
+	private static final int PROPERTY		= cim23Parser.Property;
+	private static final int ALIAS			= cim23Parser.Alias;
+	private static final int VALUE			= cim23Parser.Value;
 	
-	private cim23Lexer lexer;
+	private RecognizerPool pool;
+	private boolean fastLexer;
+	private ParseMode mode = ParseMode.TREE;
+	private boolean discardHiddenTokens;
+	private IncludeResolver includeResolver;
+	private IncludeCache includeCache;
+	private ParseCache parseCache;
+	private SymbolTable symbolTable;
 	
 	/**
 	 * Default constructor. 
-	 * CIM 2.3 lexer is initialized by this constructor.
 	 */
 	public MOFParser() {
-		 lexer = new cim23Lexer();
+		this(new RecognizerPool());
+	}
+
+	/**
+	 * Build a parser taking its lexers and parsers from the given pool.
+	 * @see MOFParserFactory
+	 */
+	MOFParser(RecognizerPool pool) {
+		this.pool = pool;
 	}
 	
 	/**
 	 * Parse a MOF specification read from an InputStream.
 	 * Parsing events are sent to the given handler instance.
+	 * Stream content is decoded using the platform default charset.
 	 * @param iStream stream containing MOF specification to read. This stream can come from a file, a socket or whatever.
 	 * @param handler instance of the handler which will receive parsing events.
 	 * @throws MOFParserException thrown if an error is detected during parse.
 	 * @throws IOException if an error occurs while reading the stream
 	 */
 	public void parse(InputStream iStream, IContentHandler handler) throws MOFParserException, IOException {
-		OutputStream out = new ByteArrayOutputStream();
-		byte[] buf = new byte[1024];
-		int numRead=0;
-        while((numRead=iStream.read(buf)) != -1){
-        	out.write(buf, 0, numRead);
-        }
-		
-		parse(out.toString(), handler);
+		parse(new InputStreamReader(iStream), handler);
+	}
+
+	/**
+	 * Parse a MOF specification read from a Reader.
+	 * Parsing events are sent to the given handler instance.
+	 * The reader content is lexed by fixed-size windows, so the whole document is never held in memory.
+	 * @param reader reader containing MOF specification to read.
+	 * @param handler instance of the handler which will receive parsing events.
+	 * @throws MOFParserException thrown if an error is detected during parse.
+	 * @throws IOException if an error occurs while reading the stream
+	 */
+	public void parse(Reader reader, IContentHandler handler) throws MOFParserException, IOException {
+		parseWindowed(new CaseInsensitiveReaderStream(reader), null, handler);
+	}
+
+	/**
+	 * Parse a MOF specification read from a file.
+	 * Parsing events are sent to the given handler instance.
+	 * File content is decoded using the platform default charset.
+	 * @param file file containing MOF specification to read.
+	 * @param handler instance of the handler which will receive parsing events.
+	 * @throws MOFParserException thrown if an error is detected during parse.
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public void parse(File file, IContentHandler handler) throws MOFParserException, IOException {
+		parse(file, Charset.defaultCharset(), handler);
+	}
+
+	/**
+	 * Parse a MOF specification read from a file.
+	 * Parsing events are sent to the given handler instance.
+	 * The file is memory-mapped and decoded incrementally while it is lexed. US-ASCII, UTF-8
+	 * and ISO-8859-1 contents are read faster than other charsets.
+	 * @param file file containing MOF specification to read.
+	 * @param charset charset used to decode file content
+	 * @param handler instance of the handler which will receive parsing events.
+	 * @throws MOFParserException thrown if an error is detected during parse.
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public void parse(File file, Charset charset, IContentHandler handler) throws MOFParserException, IOException {
+		if(parseCache != null) {
+			parseCached(file, charset, handler);
+			return;
+		}
+		FileInputStream in = new FileInputStream(file);
+		try {
+			parseWindowed(new CaseInsensitiveMappedStream(in.getChannel(), charset), 
+					IncludeSource.forFile(file, charset), handler);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private void parseCached(File file, Charset charset, IContentHandler handler) throws MOFParserException, IOException {
+		ParseCache.Entry entry = parseCache.entry(file, charset);
+		CompiledSchema schema = entry.load();
+		RecordingHandler events = null;
+		if(schema == null) {
+			events = new RecordingHandler(false);
+			FileInputStream in = new FileInputStream(file);
+			try {
+				CaseInsensitiveMappedStream input = new CaseInsensitiveMappedStream(in.getChannel(), charset);
+				parseContent(input, events);
+				if(input.getIOException() != null) {
+					throw input.getIOException();
+				}
+			}
+			finally {
+				in.close();
+			}
+			CompiledSchemaWriter writer = new CompiledSchemaWriter();
+			try {
+				events.replay(writer);
+				entry.store(writer);
+			}
+			catch (MOFParserException e) {
+				//Files containing errors are not cached
+			}
+			catch (IOException e) {
+				//The cache can't be written, the file is parsed again next time
+			}
+		}
+
+		handler = documentHandler(IncludeSource.forFile(file, charset), handler);
+		try {
+			handler.startDocument();
+			if(schema == null) {
+				events.replay(handler);
+			}
+			else {
+				schema.replayDeclarations(handler);
+			}
+			handler.endDocument();
+		}
+		catch (IncludingHandler.IncludeException e) {
+			throw e.getException();
+		}
+	}
+
+	/**
+	 * Open a pull based reader on a MOF specification.
+	 * Declarations are parsed when they are requested from the reader.
+	 * @param reader reader containing MOF specification to read.
+	 * @return MOF reader
+	 */
+	public MOFReader read(Reader reader) {
+		return createReader(new CaseInsensitiveReaderStream(reader), null);
+	}
+
+	/**
+	 * Open a pull based reader on a MOF specification.
+	 * @param mofContent String containing a MOF specification.
+	 * @return MOF reader
+	 */
+	public MOFReader read(String mofContent) {
+		return createReader(new CaseInsensitiveStringStream(mofContent), null);
+	}
+
+	/**
+	 * Open a pull based reader on a MOF file. The file is memory-mapped, and is closed when the 
+	 * reader is closed.
+	 * @param file file containing MOF specification to read.
+	 * @param charset charset used to decode file content
+	 * @return MOF reader
+	 * @throws IOException if the file can't be opened
+	 */
+	public MOFReader read(File file, Charset charset) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			return createReader(new CaseInsensitiveMappedStream(in.getChannel(), charset), in);
+		}
+		catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	private MOFReader createReader(CharStream input, Closeable closeable) {
+		return new MOFReader(input, createTokenSource(input), discardHiddenTokens, symbolTable, closeable);
+	}
+
+	private void parseWindowed(CaseInsensitiveWindowedStream input, IncludeSource document, IContentHandler handler)
+			throws MOFParserException, IOException {
+		parse(input, document, handler);
+		if(input.getIOException() != null) {
+			throw input.getIOException();
+		}
 	}
 
 	/**
@@ -110,64 +288,329 @@ public class MOFParser {
 	 * @throws MOFParserException thrown if an error is detected during parse.
 	 */
 	public void parse(String mofContent, IContentHandler handler) throws MOFParserException {
+		parse(new CaseInsensitiveStringStream(mofContent), null, handler);
+	}
+
+	private void parse(CharStream input, IncludeSource document, IContentHandler handler) throws MOFParserException {
+		handler = documentHandler(document, handler);
+		try {
+			handler.startDocument();
+			parseContent(input, handler);
+			handler.endDocument();
+		}
+		catch (IncludingHandler.IncludeException e) {
+			throw e.getException();
+		}
+	}
+
+	private IContentHandler documentHandler(IncludeSource document, IContentHandler handler) {
+		if(includeResolver != null) {
+			return new IncludingHandler(this, handler, includeResolver, document);
+		}
+		return handler;
+	}
+
+	/**
+	 * Parse a file included by the document being parsed.
+	 * Document events are not sent, as the included content is part of the including document.
+	 */
+	void parseIncluded(Reader reader, IContentHandler handler) throws MOFParserException, IOException {
+		CaseInsensitiveReaderStream input = new CaseInsensitiveReaderStream(reader);
+		parseContent(input, handler);
+		if(input.getIOException() != null) {
+			throw input.getIOException();
+		}
+	}
+
+	/**
+	 * Parse a MOF specification using several threads.
+	 * The specification is split at production boundaries into chunks which are parsed in parallel
+	 * by the given executor. Parsing events are then sent to the handler in document order, from
+	 * the calling thread. The executor isn't shut down by this method.
+	 * @param mofContent String containing a MOF specification.
+	 * @param handler instance of the handler which will receive parsing events.
+	 * @param executor executor used to parse chunks
+	 * @throws MOFParserException thrown if an error is detected during parse.
+	 */
+	public void parse(final String mofContent, IContentHandler handler, ExecutorService executor)
+			throws MOFParserException {
+		if(includeResolver != null) {
+			handler = new IncludingHandler(this, handler, includeResolver, null);
+		}
 		handler.startDocument();
-		lexer.setCharStream(new CaseInsensitiveStringStream(mofContent));
-	   	CommonTokenStream tokens = new CommonTokenStream(lexer);
-	    cim23Parser parser = new cim23Parser(tokens);
-	    
-		CommonTree specTree;
-	    try {
-			specTree = (CommonTree)parser.mofSpecification().getTree();
-			//MPL-17
-			//Test 'nil' to know is only one production has been parsed
-			if(specTree.toString().equalsIgnoreCase("nil")) {
-				for(int i=0; i < specTree.getChildCount(); i++) {
-					CommonTree production = (CommonTree)specTree.getChild(i);
-					parseProduction(production, handler);
-				}
+		List<Future<RecordingHandler>> results = new ArrayList<Future<RecordingHandler>>();
+		try {
+			for(final ProductionSplitter.Chunk chunk : ProductionSplitter.split(mofContent, ProductionSplitter.DEFAULT_CHUNK_SIZE)) {
+				results.add(executor.submit(new Callable<RecordingHandler>() {
+					public RecordingHandler call() throws MOFParserException {
+						CharStream input = new CaseInsensitiveStringStream(mofContent.substring(chunk.start, chunk.end));
+						input.setLine(chunk.line);
+						input.setCharPositionInLine(chunk.charPositionInLine);
+						RecordingHandler recorder = new RecordingHandler(false);
+						parseContent(input, recorder);
+						return recorder;
+					}
+				}));
+			}
+			for(Future<RecordingHandler> result : results) {
+				result.get().replay(handler);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MOFParserException(e);
+		}
+		catch (IncludingHandler.IncludeException e) {
+			throw e.getException();
+		}
+		catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new MOFParserException(e.getCause());
+		}
+		finally {
+			for(Future<RecordingHandler> result : results) {
+				result.cancel(true);
+			}
+		}
+		handler.endDocument();
+	}
+
+	/**
+	 * Create a new lexer reading the given input.
+	 */
+	private TokenSource createTokenSource(CharStream input) {
+		if(fastLexer) {
+			return new MOFScanner(input);
+		}
+		return new StreamingLexer(input);
+	}
+
+	/**
+	 * Parse productions read from a stream, according to the parsing mode.
+	 * Lexer and parser are taken from the pool, so that nested or concurrent parses don't share them.
+	 */
+	private void parseContent(CharStream input, IContentHandler handler) throws MOFParserException {
+		RecognizerPool.Recognizers recognizers = pool.borrow();
+		try {
+			WindowedTokenStream tokens = new WindowedTokenStream(recognizers.getTokenSource(input, fastLexer, handler));
+			tokens.discardOffChannelTokens(discardHiddenTokens);
+			if(mode == ParseMode.DIRECT) {
+				DirectParser parser = new DirectParser(tokens, new DeclBuilder(handler, symbolTable));
+				parser.mofSpecification();
+			}
+			else if(mode == ParseMode.INCREMENTAL) {
+				parseIncremental(recognizers.getParser(tokens), tokens, handler);
 			}
 			else {
-				parseProduction(specTree, handler);
+				parseSpecification(recognizers.getParser(tokens), handler);
 			}
 		}
 		catch (RecognitionException re) {
 			handler.error(new MOFParserException(re));
 		}
-		
-	    handler.endDocument();
+		catch (MOFScanner.ScanException e) {
+			throw e.getException();
+		}
+		finally {
+			pool.release(recognizers);
+		}
 	}
 	
-	private void parseProduction(CommonTree prodTree, IContentHandler handler) throws MOFParserException {
-		Production prodType = null;
-		String prodStr = prodTree.toString();
-		
-		if(prodStr.equalsIgnoreCase(CLASS_DECL)) {
-			prodType = Production.classDeclaration;
-		} else if (prodStr.equalsIgnoreCase(PRAGMA_DECL)) {
-			prodType = Production.compilerDirective;
-		} else if (prodStr.equalsIgnoreCase("Instance")) {
-			prodType = Production.instanceDeclaration;
-		} else if (prodStr.equalsIgnoreCase(QUALIFIER_DECL)) {
-			prodType = Production.qualifierDeclaration;
-		} else {
-			handler.error(new MOFParserException(MOFParserException.UNKNOWN_PRODUCTION_TYPE));
-			return;
+	private void parseSpecification(cim23Parser parser, IContentHandler handler)
+			throws MOFParserException, RecognitionException {
+		CommonTree specTree = (CommonTree)parser.mofSpecification().getTree();
+		//MPL-17
+		//Test 'nil' to know is only one production has been parsed
+		if(specTree.isNil()) {
+			for(int i=0; i < specTree.getChildCount(); i++) {
+				CommonTree production = (CommonTree)specTree.getChild(i);
+				parseProduction(production, handler);
+			}
 		}
-		handler.startProduction(prodType);
-		
-		if(prodType == Production.compilerDirective) {
-			parseCompilerDirective(prodTree, handler);
+		else {
+			parseProduction(specTree, handler);
 		}
-		else if(prodType == Production.qualifierDeclaration) {
-			parseQualifierDeclaration(prodTree, handler);
+	}
+
+	/**
+	 * Parse productions one at a time. Each production tree is sent to the handler as soon
+	 * as it has been parsed, then dropped.
+	 */
+	private void parseIncremental(cim23Parser parser, TokenStream tokens, IContentHandler handler)
+			throws MOFParserException, RecognitionException {
+		while(tokens.LA(1) != Token.EOF) {
+			int start = tokens.index();
+			CommonTree production = (CommonTree)parser.mofProduction().getTree();
+			if(production != null) {
+				parseProduction(production, handler);
+			}
+			//Skip a token the parser couldn't recover from, so parsing goes on
+			if(tokens.index() == start) {
+				tokens.consume();
+			}
 		}
-		else if(prodType == Production.classDeclaration) {
-			parseClassDeclaration(prodTree, handler);
+	}
+	
+	/**
+	 * Tell if the hand written scanner is used instead of the ANTLR generated lexer.
+	 * @return true if the hand written scanner is used
+	 */
+	public boolean isFastLexer() {
+		return fastLexer;
+	}
+
+	/**
+	 * Select the lexer used to read MOF content. The hand written scanner produces the same tokens
+	 * as the ANTLR generated lexer, but runs faster. Default is to use the ANTLR generated lexer.
+	 * @param fastLexer true to use the hand written scanner
+	 */
+	public void setFastLexer(boolean fastLexer) {
+		this.fastLexer = fastLexer;
+	}
+
+	/**
+	 * Tell if hidden tokens (whitespaces and comments) are discarded as soon as they are lexed.
+	 * @return true if hidden tokens are discarded
+	 */
+	public boolean isDiscardHiddenTokens() {
+		return discardHiddenTokens;
+	}
+
+	/**
+	 * Select if hidden tokens (whitespaces and comments) are discarded as soon as they are lexed,
+	 * instead of being kept in the token window with other tokens. Default is to keep them.
+	 * @param discardHiddenTokens true to discard hidden tokens
+	 */
+	public void setDiscardHiddenTokens(boolean discardHiddenTokens) {
+		this.discardHiddenTokens = discardHiddenTokens;
+	}
+
+	/**
+	 * Get the resolver used to parse included files.
+	 * @return include resolver, or null if included files are not parsed
+	 */
+	public IncludeResolver getIncludeResolver() {
+		return includeResolver;
+	}
+
+	/**
+	 * Set the resolver used to parse included files. When a resolver is set, files included by 
+	 * <code>#pragma include</code> directives are parsed inline: their events are sent to the handler
+	 * right after the {@link IContentHandler#include(String)} notification. A file is included only
+	 * once per parse, and include cycles are reported to the handler as errors.
+	 * Default is to parse no included file.
+	 * @param includeResolver include resolver, or null to disable include parsing
+	 */
+	public void setIncludeResolver(IncludeResolver includeResolver) {
+		this.includeResolver = includeResolver;
+	}
+
+	/**
+	 * Get the cache of parsed included files.
+	 * @return include cache, or null if included files are parsed every time
+	 */
+	public IncludeCache getIncludeCache() {
+		return includeCache;
+	}
+
+	/**
+	 * Set the cache of parsed included files. The cache is used only when an include resolver is set,
+	 * and can be shared by several parsers.
+	 * @param includeCache include cache, or null to parse included files every time
+	 */
+	public void setIncludeCache(IncludeCache includeCache) {
+		this.includeCache = includeCache;
+	}
+
+	/**
+	 * Get the persistent cache of parsed files.
+	 * @return parse cache, or null if files are parsed every time
+	 */
+	public ParseCache getParseCache() {
+		return parseCache;
+	}
+
+	/**
+	 * Set the persistent cache of parsed files. The cache is used when parsing a <code>File</code>.
+	 * @param parseCache parse cache, or null to parse files every time
+	 */
+	public void setParseCache(ParseCache parseCache) {
+		this.parseCache = parseCache;
+	}
+
+	/**
+	 * Get the table sharing identifier instances between declarations.
+	 * @return symbol table, or null if identifiers are not shared
+	 */
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	/**
+	 * Set the table sharing identifier instances between declarations. Parsers have no table
+	 * by default. A table keeps its content as long as it is used, so a long-lived table should
+	 * be bounded.
+	 * @param symbolTable symbol table, or null to not share identifiers
+	 */
+	public void setSymbolTable(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+
+	/**
+	 * Get the parsing mode.
+	 * @return current parsing mode
+	 */
+	public ParseMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Set the parsing mode. Default mode is {@link ParseMode#TREE}.
+	 * In {@link ParseMode#DIRECT} mode, no AST is built and the first syntax error stops parsing.
+	 * @param mode parsing mode
+	 */
+	public void setMode(ParseMode mode) {
+		this.mode = mode;
+	}
+	
+	private String symbol(String name) {
+		if(symbolTable == null) {
+			return name;
+		}
+		return symbolTable.intern(name);
+	}
+
+	private FoldedName foldedSymbol(String name) {
+		if(symbolTable == null) {
+			return new FoldedName(name);
 		}
-		else if(prodType == Production.instanceDeclaration) {
+		return symbolTable.symbol(name);
+	}
+
+	private void parseProduction(CommonTree prodTree, IContentHandler handler) throws MOFParserException {
+		switch(prodTree.getType()) {
+		case CLASS_DECL:
+			handler.startProduction(Production.classDeclaration);
+			parseClassDeclaration(prodTree, handler);
+			break;
+		case PRAGMA_DECL:
+			handler.startProduction(Production.compilerDirective);
+			parseCompilerDirective(prodTree, handler);
+			break;
+		case INSTANCE_DECL:
+			handler.startProduction(Production.instanceDeclaration);
 			parseInstanceDeclaration(prodTree, handler);
+			break;
+		case QUALIFIER_DECL:
+			handler.startProduction(Production.qualifierDeclaration);
+			parseQualifierDeclaration(prodTree, handler);
+			break;
+		default:
+			handler.error(new MOFParserException(MOFParserException.UNKNOWN_PRODUCTION_TYPE));
+			return;
 		}
-		
 		handler.endProduction();
 	}
 	
@@ -187,13 +630,7 @@ public class MOFParser {
 			return;
 		}
 		//Check if the pragma directive is one of the supported.
-		CompilerDirective directive = null;
-		for(CompilerDirective supportedDirectives : CompilerDirective.values()) {
-			if(pragmaName.equalsIgnoreCase(supportedDirectives.toString())) {
-				directive = supportedDirectives;
-				break;
-			}
-		}
+		CompilerDirective directive = DeclBuilder.getCompilerDirective(pragmaName);
 		if(directive == null) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_COMPILER_DIRECTIVE,
 					pragmaName));
@@ -202,7 +639,7 @@ public class MOFParser {
 		CommonTree paramTree = (CommonTree)tree.getChild(1);
 		String pragmaParam = null;
 		if(paramTree != null) {
-			pragmaParam = removeQuotes(paramTree.toString());
+			pragmaParam = DeclBuilder.cleanupString(paramTree.toString());
 		}
 
 		handler.compilerDirective(new PragmaDecl(directive, pragmaParam));
@@ -224,7 +661,7 @@ public class MOFParser {
 			return;
 		}
 		ClassDecl cDecl = new ClassDecl();
-		cDecl.name = tree.getChild(0).toString();
+		cDecl.name = symbol(tree.getChild(0).toString());
 		if(cDecl.name == null || cDecl.name.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_CLASS_NAME,
 					cDecl.name));
@@ -233,7 +670,7 @@ public class MOFParser {
 		CommonTree cTree = (CommonTree)tree.getChild(0);
 		CommonTree sTree = getChild(cTree, SUPERCLASS);
 		if(sTree != null && sTree.getChild(0) != null) {
-			cDecl.parentClass = sTree.getChild(0).toString();
+			cDecl.parentClass = symbol(sTree.getChild(0).toString());
 		}
 		
 		//Process class qualifiers
@@ -246,14 +683,16 @@ public class MOFParser {
 		//Process class properties
 		for(int i=0; i < cTree.getChildCount(); i++) {
 			CommonTree pTree = (CommonTree)cTree.getChild(i);
-			if(pTree.toString().equalsIgnoreCase(QUALIFIERS)) {
+			switch(pTree.getType()) {
+			case QUALIFIERS:
 				for(int j=0; j < pTree.getChildCount(); j++) {
 					CommonTree qualTree = (CommonTree)pTree.getChild(j);
 					cDecl.qualifiers.add(processQualifier(qualTree, handler));
 				}
-			}
-			if(pTree.toString().equalsIgnoreCase(PROPERTY)) {
+				break;
+			case PROPERTY:
 				cDecl.properties.add(processProperty(pTree, handler));
+				break;
 			}
 		}
 		handler.classDeclaration(cDecl);
@@ -266,7 +705,7 @@ public class MOFParser {
 			handler.error(new MOFParserException(MOFParserException.INVALID_PROPERTY_NAME, null));
 			return null;
 		}
-		prop.name = pTree.getChild(0).toString();
+		prop.setName(foldedSymbol(pTree.getChild(0).toString()));
 		if(prop.name == null || prop.name.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_QUALIFIER_NAME, null));
 			return null;
@@ -278,7 +717,7 @@ public class MOFParser {
 		//Process default value
 		CommonTree valueTree = getChild(pTree, DEFAULT);
 		if(valueTree != null) {
-			prop.value = processValueTree(valueTree, handler);
+			prop.value = Values.of(prop.type, processValueTree(valueTree, handler));
 		}
 
 		//Process property qualifiers
@@ -298,24 +737,39 @@ public class MOFParser {
 		}
 		//qualifer type set to null, as we don't know the qualifer declaration
 		qual.type = null;
-		qual.name = qTree.toString();
+		qual.setName(foldedSymbol(qTree.toString()));
 		if(qual.name == null || qual.name.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_QUALIFIER_NAME,null));
 			return null;
 		}
-		qual.value = processValueTree(qTree, handler);
-
-		//Process flavors
-		CommonTree qualifierFlavorTree = getChild(qTree, FLAVOR);
-		if(qualifierFlavorTree != null) {
-			for(int i = 0; i < qualifierFlavorTree.getChildCount(); i++) {
-				FlavorType fType = getFlavorType(qualifierFlavorTree.getChild(i).toString());
-				if(fType != null) {
-					qual.flavors.add(fType.toString());
+		//Qualifier values and flavors are both children of the qualifier node, array values are grouped
+		List<String> vals = new ArrayList<String>();
+		List<Token> valueTokens = new ArrayList<Token>();
+		boolean isArray = false;
+		for(int i = 0; i < qTree.getChildCount(); i++) {
+			CommonTree child = (CommonTree)qTree.getChild(i);
+			FlavorType fType = DeclBuilder.getFlavorType(child.getType());
+			if(fType != null) {
+				qual.flavors.add(fType.toString());
+			}
+			else if(child.getType() == ARRAY) {
+				isArray = true;
+				for(int j = 0; j < child.getChildCount(); j++) {
+					addValue(vals, (CommonTree)child.getChild(j));
+					valueTokens.add(((CommonTree)child.getChild(j)).getToken());
 				}
 			}
+			else {
+				addValue(vals, child);
+				valueTokens.add(child.getToken());
+			}
+		}
+		qual.value = vals.isEmpty() ? null : vals;
+		qual.valueType = DeclBuilder.literalType(symbolTable, valueTokens, isArray);
+		if(symbolTable == null) {
+			return qual;
 		}
-		return qual;
+		return symbolTable.internQualifier(qual);
 	}
 	
 	private void parseQualifierDeclaration(CommonTree tree, IContentHandler handler) throws MOFParserException {
@@ -327,7 +781,7 @@ public class MOFParser {
 			return;
 		}
 		QualifierDecl qDecl = new QualifierDecl();
-		qDecl.name = tree.getChild(0).toString();
+		qDecl.name = symbol(tree.getChild(0).toString());
 		if(qDecl.name == null || qDecl.name.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_QUALIFIER_NAME,
 					qDecl.name));
@@ -341,14 +795,14 @@ public class MOFParser {
 		//Process default value
 		CommonTree valueTree = getChild(typeTree, DEFAULT);
 		if(valueTree != null) {
-			qDecl.defaultValue = processValueTree(valueTree, handler);
+			qDecl.defaultValue = Values.of(qDecl.type, processValueTree(valueTree, handler));
 		}
 
 		//Process scopes
 		CommonTree qualifierScopeTree = getChild(tree, SCOPE);
 		if(qualifierScopeTree != null) {
 			for(int i = 0; i < qualifierScopeTree.getChildCount(); i++) {
-				ScopeType sType = getScopeType(qualifierScopeTree.getChild(i).toString());
+				ScopeType sType = DeclBuilder.getScopeType(qualifierScopeTree.getChild(i).getType());
 				if(sType != null) {
 					qDecl.scopes.add(sType.toString());
 				}
@@ -359,7 +813,7 @@ public class MOFParser {
 		CommonTree qualifierFlavorTree = getChild(tree, FLAVOR);
 		if(qualifierFlavorTree != null) {
 			for(int i = 0; i < qualifierFlavorTree.getChildCount(); i++) {
-				FlavorType fType = getFlavorType(qualifierFlavorTree.getChild(i).toString());
+				FlavorType fType = DeclBuilder.getFlavorType(qualifierFlavorTree.getChild(i).getType());
 				if(fType != null) {
 					qDecl.flavors.add(fType.toString());
 				}
@@ -371,39 +825,30 @@ public class MOFParser {
 	}
 	
 	private TypeDecl processTypeTree(CommonTree typeTree, IContentHandler handler) throws MOFParserException {
-		TypeDecl tDecl = new TypeDecl();
-		
 		if(typeTree == null) {
 			handler.error(new MOFParserException(
 					MOFParserException.INVALID_TYPE_TREE));
 			return null;
 		}
 		CommonTree dataTypeTree = (CommonTree)typeTree.getChild(0);
-		String dataType = dataTypeTree.toString();
-		if(dataType == null || dataType.equals("")) {
-			handler.error(new MOFParserException(MOFParserException.INVALID_DATA_TYPE,
-					dataType));
+		if(dataTypeTree == null) {
+			handler.error(new MOFParserException(MOFParserException.INVALID_DATA_TYPE, null));
 			return null;
 		}
 		
 		//Check if data type is a supported data type
-		tDecl.name = null;
-		for(DataType supportedType : DataType.values()) {
-			if(dataType.equalsIgnoreCase(supportedType.toString())) {
-				tDecl.name = supportedType.toString();
-				break;
-			}
-		}
-		if(tDecl.name == null) {
-			handler.error(new MOFParserException(MOFParserException.INVALID_COMPILER_DIRECTIVE,
-					dataType));
+		DataType supportedType = DeclBuilder.getDataType(dataTypeTree.getType());
+		if(supportedType == null) {
+			handler.error(new MOFParserException(MOFParserException.INVALID_DATA_TYPE,
+					dataTypeTree.toString()));
 			return null;
 		}
 		
-		if(tDecl.name.toString().equals(DataType.REFERENCE.toString())) {
+		if(supportedType == DataType.REFERENCE) {
 			//Type is a reference, then read data type child to get the referenced class name
+			TypeDecl tDecl = new TypeDecl(supportedType.toString());
 			if(dataTypeTree.getChildCount() > 0) {
-				tDecl.refClass = dataTypeTree.getChild(0).toString();
+				tDecl.refClass = symbol(dataTypeTree.getChild(0).toString());
 			}
 			if(tDecl.refClass == null || tDecl.refClass.equals("")) {
 				handler.error(new MOFParserException(MOFParserException.INVALID_CLASS_REF,
@@ -411,6 +856,7 @@ public class MOFParser {
 				return null;
 			}
 			tDecl.isRef = true;
+			return tDecl;
 		}
 		else {
 			//Type is a class type, then read child to know if it's an array type
@@ -420,36 +866,37 @@ public class MOFParser {
 				typeChild = (CommonTree)dataTypeTree.getChild(0);
 			}
 			
-			if(typeChild != null && "Array".equalsIgnoreCase(typeChild.toString())) {
-				tDecl.isArray = true;
+			if(typeChild != null && typeChild.getType() == ARRAY) {
 				if(typeChild.getChild(0) != null) {
 					//Set array size
-					tDecl.arraySize = Integer.parseInt(typeTree.getChild(0).toString());
+					return DeclBuilder.type(symbolTable, supportedType, true, Integer.parseInt(typeChild.getChild(0).toString()));
 				}
 				else {
 					//Value is an array type with unlimited size
-					tDecl.arraySize = -1;
+					return DeclBuilder.type(symbolTable, supportedType, true, -1);
 				}
 			}
+			return DeclBuilder.type(symbolTable, supportedType, false, 0);
 		}
-		return tDecl;
 	}
 	private void parseInstanceDeclaration(CommonTree tree, IContentHandler handler) 
 			throws MOFParserException {
 		handler.startInstanceDeclaration();
 		InstDecl iDecl = new InstDecl();
-		iDecl.className = tree.getChild(0).toString();
+		iDecl.className = symbol(tree.getChild(0).toString());
 		if(iDecl.className == null || iDecl.className.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_CLASS_NAME,iDecl.className));
 			return;
 		}
 		CommonTree cTree = (CommonTree)tree.getChild(0);
 		CommonTree aliasTree = getChild(cTree, ALIAS);
-		iDecl.alias = aliasTree.getChild(0).toString();
+		if(aliasTree != null) {
+			iDecl.alias = aliasTree.getChild(0).toString();
+		}
 
 		for(int i=0; i < cTree.getChildCount(); i++) {
 			CommonTree pTree = (CommonTree)cTree.getChild(i);
-			if(pTree.toString().equalsIgnoreCase(PROPERTY)) {
+			if(pTree.getType() == PROPERTY) {
 				iDecl.properties.add(processInstProperty(pTree, handler));
 			}
 		}
@@ -464,7 +911,7 @@ public class MOFParser {
 			handler.error(new MOFParserException(MOFParserException.INVALID_PROPERTY_NAME, null));
 			return null;
 		}
-		prop.name = pTree.getChild(0).toString();
+		prop.name = symbol(pTree.getChild(0).toString());
 		if(prop.name == null || prop.name.equals("")) {
 			handler.error(new MOFParserException(MOFParserException.INVALID_QUALIFIER_NAME, null));
 			return null;
@@ -473,10 +920,12 @@ public class MOFParser {
 		//Process default value
 		CommonTree valueTree = getChild(pTree, VALUE);
 		if(valueTree != null) {
-			prop.value = processValueTree(valueTree, handler);
-			prop.type.arraySize = prop.value.size(); 
-			if(prop.type.arraySize > 1) {
-				prop.type.isArray = true;
+			prop.value = Values.of(prop.type, processValueTree(valueTree, handler));
+			if(prop.value != null) {
+				prop.type.arraySize = prop.value.size(); 
+				if(prop.type.arraySize > 1) {
+					prop.type.isArray = true;
+				}
 			}
 		}
 		return prop;
@@ -485,11 +934,7 @@ public class MOFParser {
 	private List<String> processValueTree(CommonTree valueTree, IContentHandler handler) throws MOFParserException {
 		List<String> vals = new ArrayList<String>();
 		for(int i=0; i < valueTree.getChildCount(); i++) {
-			String strValue = valueTree.getChild(i).toString();
-			strValue = cleanupString(strValue);
-			if(!strValue.equalsIgnoreCase("null")) { 
-				vals.add(strValue);
-			}
+			addValue(vals, (CommonTree)valueTree.getChild(i));
 		}
 		if(vals.isEmpty()) {
 			return null;
@@ -498,33 +943,28 @@ public class MOFParser {
 		return vals;
 	}
 	
-	private String cleanupString(String in) {
-		return in.replaceFirst("^\"", "")
-			.replaceFirst("\"$", "")	
-			.replaceAll("\\\\'", "'")
-			.replaceAll("\\\\\"", "\"")
-			.replaceAll("\\\\n", "\n");
+	private void addValue(List<String> vals, CommonTree valueTree) {
+		String strValue = DeclBuilder.cleanupString(valueTree.toString());
+		if(!strValue.equalsIgnoreCase("null")) { 
+			vals.add(strValue);
+		}
 	}
 	
 	/**
-	 * Return the child subtree, if any, of a tree with then given name
+	 * Return the child subtree, if any, of a tree with then given token type
 	 * @param root tree to find child in.
-	 * @param childName name of the child sub tree to find.
+	 * @param childType token type of the child sub tree to find.
 	 * @return the child tree found , or null if nothing found.
 	 */
-	private CommonTree getChild(CommonTree root, String childName) {
+	private CommonTree getChild(CommonTree root, int childType) {
 		for(int i=0; i < root.getChildCount(); i++) {
-			if(childName.equalsIgnoreCase(root.getChild(i).toString())) {
+			if(root.getChild(i).getType() == childType) {
 				return (CommonTree)root.getChild(i);
 			}
 		}
 		return null;
 	}
 
-	private String removeQuotes(String str) {
-		return str.replaceFirst("^\"", "").replaceFirst("\"$", "");
-	}
-
 	/**
 	 * Get the flavor type with the given name.
 	 * The name is supposed to be in MOF syntax
@@ -536,13 +976,7 @@ public class MOFParser {
 		if(typeName == null) {
 			return null;
 		}
-		
-		for(FlavorType type : FlavorType.values()) {
-			if(typeName.equalsIgnoreCase(type.toString())) {
-				return type;
-			}
-		}
-		return null;
+		return DeclBuilder.getFlavorType(typeName);
 	}
 
     
@@ -557,24 +991,16 @@ public class MOFParser {
 		if(typeName == null) {
 			return null;
 		}
-		
-		for(ScopeType type : ScopeType.values()) {
-			if(typeName.equalsIgnoreCase(type.toString())) {
-				return type;
-			}
-		}
-		return null;
+		return DeclBuilder.getScopeType(typeName);
 	}
 	
 	/**
 	 * Generate MOF header comment
 	 * @return a String containing generator comments
+	 * @see MOFGenerator#generateHeader()
 	 */
 	public String generateHeader() {
-		StringTemplateGroup group = new StringTemplateGroup("group");
-		StringTemplate template = group.getInstanceOf("org/escapek/mofparser/internal/templates/header");
-		template.setAttribute("date", new Date());
-		return template.toString();
+		return MOFGenerator.getDefault().generateHeader();
 	}
 	
 	/**
@@ -582,169 +1008,49 @@ public class MOFParser {
 	 * @param values List of values
 	 * @param type expected value type
 	 * @return generated string content
+	 * @see MOFGenerator#generateValue(List, TypeDecl)
 	 */
 	public String generateValue(List<String> values, TypeDecl type) {
-		StringTemplate template=null;
-		if(values == null || values.isEmpty()) {
-			return "null";
-		}
-		if(type == null) {
-			type = new TypeDecl();
-			type.name = DataType.STRING.toString();
-			String value = new String();
-			for(String v : values) {
-				value += v;
-				template = new StringTemplate("\"$value$\"");
-			}
-			template.setAttribute("value", value);
-			String ret = template.toString();
-			return ret.replaceAll("'", "\\'")
-				.replaceAll("\\\"", "\\\"");
-		}
-
-		List<String> tmpVal = new ArrayList<String>(values);
-		values.clear();
-		for(String s : tmpVal) {
-			values.add(s.replaceAll("'", "\\'")
-			.replaceAll("\\\"", "\\\\\\\""));
-		}
-		
-		if(!type.isArray && !type.isRef) {
-			if(DataType.valueOf(type.name.toUpperCase()) == DataType.STRING) {
-				template = new StringTemplate("\"$value$\"");
-			}
-			else {
-				template = new StringTemplate("$value$");
-			}
-			template.setAttribute("value", values.get(0));
-		}
-		if(type.isArray) { 
-			if(DataType.valueOf(type.name) == DataType.STRING) {
-				template = new StringTemplate("{\"$value; separator=\"\\\", \\\"\"$\"}");
-			}
-			else {
-				template = new StringTemplate("{$value; separator=, $}");
-			}
-			template.setAttribute("value", values);
-		}
-		if(type.isRef) { 
-			template = new StringTemplate("$value$");
-			template.setAttribute("value", type.refClass);
-		}
-		return template.toString();
+		return MOFGenerator.getDefault().generateValue(values, type);
 	}
 
 	/**
 	 * Generate MOF corresponding to a compiler directive declaration
 	 * @param decl compiler directive to generate
 	 * @return generated mof.
+	 * @see MOFGenerator#generateMOF(PragmaDecl)
 	 */
 	public String generateMOF(PragmaDecl decl) {
-		StringTemplateGroup group = new StringTemplateGroup("group");
-		StringTemplate template = group.getInstanceOf("org/escapek/mofparser/internal/templates/pragmaDecl");
-		template.setAttribute("directive", decl.directive.toString());
-		template.setAttribute("param", decl.parameter);
-		template.setAttribute("header", generateHeader());
-		return template.toString();
+		return MOFGenerator.getDefault().generateMOF(decl);
 	}
 
 	/**
 	 * Generate MOF corresponding to a qualifier declaration
 	 * @param decl qualifier declaration to generate
 	 * @return generated mof.
+	 * @see MOFGenerator#generateMOF(QualifierDecl)
 	 */
 	public String generateMOF(QualifierDecl decl) {
-		StringTemplateGroup group = new StringTemplateGroup("group");
-		StringTemplate template = group.getInstanceOf("org/escapek/mofparser/internal/templates/qualifierDecl");
-		template.setAttribute("header", generateHeader());
-		template.setAttribute("qualifierName", decl.name);
-		template.setAttribute("dataType", decl.type.name);
-		template.setAttribute("isarray", decl.type.isArray);
-		String defaultValue = null;
-		defaultValue = generateValue(decl.defaultValue, decl.type);
-		if(defaultValue != null) {
-			template.setAttribute("defaultValue", defaultValue);
-		}
-		template.setAttribute("scopes", decl.scopes);
-		template.setAttribute("flavors", decl.flavors);
-		if(decl.type.arraySize > 0) {
-			template.setAttribute("array", decl.type.arraySize);
-		}
-		
-		return template.toString();
+		return MOFGenerator.getDefault().generateMOF(decl);
 	}
 	
 	/**
 	 * Generate MOF corresponding to a class declaration
 	 * @param decl class declaration to generate
 	 * @return generated mof.
+	 * @see MOFGenerator#generateMOF(ClassDecl)
 	 */
 	public String generateMOF(ClassDecl decl) {
-		StringTemplateGroup group = new StringTemplateGroup("group");
-		StringTemplate template = group.getInstanceOf("org/escapek/mofparser/internal/templates/classDecl");
-		template.setAttribute("header", generateHeader());
-		List qualifiers = new ArrayList();
-		for(Qualifier q : decl.qualifiers) {
-			HashMap<String, String> map = new HashMap<String, String>();
-			map.put("name", q.name);
-			String value = generateValue(q.value, q.type);
-			if(!value.equalsIgnoreCase("null")) {
-				map.put("value", value);
-			}
-			qualifiers.add(map);
-		}
-		template.setAttribute("qualifiers", qualifiers);
-		template.setAttribute("className", decl.name);
-		template.setAttribute("parentClass", decl.parentClass);
-
-		List properties = new ArrayList();
-		for(PropertyDecl p : decl.properties) {
-			HashMap<String, Object> map = new HashMap<String, Object>();
-			map.put("name", p.name);
-			map.put("type", p.type.name);
-			
-			List pq = new ArrayList();
-			for(Qualifier q : p.qualifiers) {
-				HashMap<String, String> qm = new HashMap<String, String>();
-				qm.put("qname", q.name);
-				String value = generateValue(q.value, q.type);
-				if(!value.equalsIgnoreCase("null")) {
-					qm.put("qvalue", value);
-				}
-				pq.add(qm);
-			}
-			map.put("qualifiers", pq);
-			properties.add(map);
-		}
-
-		template.setAttribute("properties", properties);
-		
-		return template.toString();
+		return MOFGenerator.getDefault().generateMOF(decl);
 	}
 	
 	/**
-	 * Generate MOF corresponding to a class declaration
-	 * @param decl class declaration to generate
+	 * Generate MOF corresponding to an instance declaration
+	 * @param decl instance declaration to generate
 	 * @return generated mof.
+	 * @see MOFGenerator#generateMOF(InstDecl)
 	 */
 	public String generateMOF(InstDecl decl) {
-		StringTemplateGroup group = new StringTemplateGroup("group");
-		StringTemplate template = group.getInstanceOf("org/escapek/mofparser/internal/templates/instDecl");
-		template.setAttribute("header", generateHeader());
-		template.setAttribute("className", decl.className);
-		template.setAttribute("alias", decl.alias);
-
-		List properties = new ArrayList();
-		for(InstancePropertyDecl p : decl.properties) {
-			HashMap<String, Object> map = new HashMap<String, Object>();
-			map.put("name", p.name);
-			String value = generateValue(p.value, p.type);
-			if(!value.equalsIgnoreCase("null")) {
-				map.put("value", value);
-			}
-			properties.add(map);
-		}
-		template.setAttribute("properties", properties);
-		return template.toString();
+		return MOFGenerator.getDefault().generateMOF(decl);
 	}
 }
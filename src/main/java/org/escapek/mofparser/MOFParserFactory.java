@@ -0,0 +1,123 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import org.escapek.mofparser.internal.RecognizerPool;
+
+/**
+ * Factory building parsers which share a pool of lexers and parsers. Recognizers are reused
+ * across parses and threads, instead of being built for every new MOFParser instance.
+ * Parsers built by a factory get the factory settings at creation time.
+ * This class is thread-safe once configured.
+ * @author nico
+ *
+ */
+public class MOFParserFactory {
+	private RecognizerPool pool;
+	private ParseMode mode = ParseMode.TREE;
+	private boolean fastLexer;
+	private boolean discardHiddenTokens;
+	private IncludeResolver includeResolver;
+	private IncludeCache includeCache;
+	private ParseCache parseCache;
+	private SymbolTable symbolTable;
+
+	public MOFParserFactory() {
+		pool = new RecognizerPool();
+	}
+
+	/**
+	 * @param maxIdle maximum number of idle lexer and parser sets kept for reuse
+	 */
+	public MOFParserFactory(int maxIdle) {
+		pool = new RecognizerPool(maxIdle);
+	}
+
+	/**
+	 * Build a new parser using the factory pool and settings.
+	 * @return a new parser
+	 */
+	public MOFParser newParser() {
+		MOFParser parser = new MOFParser(pool);
+		parser.setMode(mode);
+		parser.setFastLexer(fastLexer);
+		parser.setDiscardHiddenTokens(discardHiddenTokens);
+		parser.setIncludeResolver(includeResolver);
+		parser.setIncludeCache(includeCache);
+		parser.setParseCache(parseCache);
+		parser.setSymbolTable(symbolTable);
+		return parser;
+	}
+
+	public ParseMode getMode() {
+		return mode;
+	}
+
+	public void setMode(ParseMode mode) {
+		this.mode = mode;
+	}
+
+	public boolean isFastLexer() {
+		return fastLexer;
+	}
+
+	public void setFastLexer(boolean fastLexer) {
+		this.fastLexer = fastLexer;
+	}
+
+	public boolean isDiscardHiddenTokens() {
+		return discardHiddenTokens;
+	}
+
+	public void setDiscardHiddenTokens(boolean discardHiddenTokens) {
+		this.discardHiddenTokens = discardHiddenTokens;
+	}
+
+	public IncludeResolver getIncludeResolver() {
+		return includeResolver;
+	}
+
+	public void setIncludeResolver(IncludeResolver includeResolver) {
+		this.includeResolver = includeResolver;
+	}
+
+	public IncludeCache getIncludeCache() {
+		return includeCache;
+	}
+
+	public void setIncludeCache(IncludeCache includeCache) {
+		this.includeCache = includeCache;
+	}
+
+	public ParseCache getParseCache() {
+		return parseCache;
+	}
+
+	public void setParseCache(ParseCache parseCache) {
+		this.parseCache = parseCache;
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	public void setSymbolTable(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+}
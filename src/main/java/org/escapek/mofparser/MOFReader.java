@@ -0,0 +1,151 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.escapek.mofparser.internal.CaseInsensitiveWindowedStream;
+import org.escapek.mofparser.internal.DeclBuilder;
+import org.escapek.mofparser.internal.DirectParser;
+import org.escapek.mofparser.internal.MOFScanner;
+import org.escapek.mofparser.internal.WindowedTokenStream;
+
+/**
+ * Pull based MOF reader. Unlike {@link MOFParser#parse(String, IContentHandler)} which pushes every
+ * declaration to a handler, a reader parses a production only when the next declaration is requested.
+ * Declarations returned by {@link #next()} are instances of {@link PragmaDecl}, {@link QualifierDecl},
+ * {@link ClassDecl} or {@link InstDecl}.
+ * Readers are created by {@link MOFParser} <code>read</code> methods.
+ * Included files are not read: <code>#pragma include</code> directives are returned as {@link PragmaDecl}.
+ * @author nico
+ *
+ */
+public class MOFReader {
+	private CharStream input;
+	private WindowedTokenStream tokens;
+	private DirectParser parser;
+	private Closeable closeable;
+	private Object next;
+	private boolean finished;
+
+	/**
+	 * Handler keeping the last declaration built by the parser.
+	 */
+	private class ReaderHandler extends DefaultHandler {
+		public void compilerDirective(PragmaDecl decl) {
+			next = decl;
+		}
+
+		public void qualifierDeclaration(QualifierDecl decl) {
+			next = decl;
+		}
+
+		public void classDeclaration(ClassDecl decl) {
+			next = decl;
+		}
+
+		public void instanceDeclaration(InstDecl decl) {
+			next = decl;
+		}
+	}
+
+	MOFReader(CharStream input, TokenSource source, boolean discardHiddenTokens, SymbolTable symbols, 
+			Closeable closeable) {
+		this.input = input;
+		this.closeable = closeable;
+		tokens = new WindowedTokenStream(source);
+		tokens.discardOffChannelTokens(discardHiddenTokens);
+		parser = new DirectParser(tokens, new DeclBuilder(new ReaderHandler(), symbols));
+	}
+
+	/**
+	 * Tell if there is another declaration to read. Productions are parsed until a declaration
+	 * is found or the end of the content is reached.
+	 * @return true if {@link #next()} will return a declaration
+	 * @throws MOFParserException if a production is invalid. Reading can go on after an invalid
+	 * production, but not after a syntax error.
+	 */
+	public boolean hasNext() throws MOFParserException {
+		try {
+			while(next == null && !finished) {
+				if(tokens.LA(1) == Token.EOF) {
+					finished = true;
+					if(input instanceof CaseInsensitiveWindowedStream &&
+							((CaseInsensitiveWindowedStream)input).getIOException() != null) {
+						throw new MOFParserException(((CaseInsensitiveWindowedStream)input).getIOException());
+					}
+				}
+				else {
+					try {
+						parser.mofProduction();
+					}
+					catch (RecognitionException re) {
+						finished = true;
+						throw new MOFParserException(re);
+					}
+				}
+			}
+		}
+		catch (MOFScanner.ScanException e) {
+			//Scan errors are thrown as syntax errors
+			finished = true;
+			throw e.getException();
+		}
+		return next != null;
+	}
+
+	/**
+	 * Read the next declaration.
+	 * @return the next declaration
+	 * @throws MOFParserException if a production is invalid
+	 * @throws NoSuchElementException if there is no more declaration to read
+	 */
+	public Object next() throws MOFParserException {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object decl = next;
+		next = null;
+		return decl;
+	}
+
+	/**
+	 * Close the reader, and the underlying file if the reader has been opened on a file.
+	 * @throws IOException if an error occurs while closing the file
+	 */
+	public void close() throws IOException {
+		finished = true;
+		next = null;
+		if(closeable != null) {
+			closeable.close();
+		}
+	}
+}
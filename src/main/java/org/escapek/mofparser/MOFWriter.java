@@ -0,0 +1,242 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.internal.StringEscapes;
+
+/**
+ * Writes declarations in MOF syntax straight to an output.
+ * The output is the same as the one of the {@link MOFGenerator} templates, each declaration being
+ * followed by a new line. Unlike the generator, no intermediate string or template attribute is
+ * built for a declaration, so large repositories can be dumped without filling the heap.
+ * The generation date written in headers is the date the writer was created.
+ * A MOFWriter isn't thread-safe.
+ * @author nico
+ *
+ */
+public class MOFWriter implements Flushable, Closeable {
+	private static final String HEADER = "//Generated by EscapeK MOF Parser library\n//Date : ";
+
+	private final Appendable out;
+	private final String date;
+
+	/**
+	 * Create a writer appending to the given output. The output isn't buffered by the writer.
+	 * @param out output receiving generated MOF
+	 */
+	public MOFWriter(Appendable out) {
+		this.out = out;
+		this.date = new Date().toString();
+	}
+
+	/**
+	 * Create a writer on a buffered writer.
+	 * @param writer output receiving generated MOF
+	 */
+	public MOFWriter(Writer writer) {
+		this((Appendable)(writer instanceof BufferedWriter ? writer : new BufferedWriter(writer)));
+	}
+
+	/**
+	 * Create a writer on a channel. Generated MOF is encoded with the given charset.
+	 * @param channel channel receiving generated MOF
+	 * @param charset charset used to encode generated MOF
+	 */
+	public MOFWriter(WritableByteChannel channel, Charset charset) {
+		this(Channels.newWriter(channel, charset.newEncoder(), -1));
+	}
+
+	/**
+	 * Write the MOF header comment.
+	 * @throws IOException if the output fails
+	 */
+	public void writeHeader() throws IOException {
+		out.append(HEADER).append(date);
+	}
+
+	/**
+	 * Write a compiler directive declaration.
+	 * @param decl compiler directive to write
+	 * @throws IOException if the output fails
+	 */
+	public void write(PragmaDecl decl) throws IOException {
+		writeHeader();
+		out.append("\n\n#pragma ").append(decl.directive.toString()).append(" (\"");
+		if(decl.parameter != null) {
+			StringEscapes.encode(decl.parameter, out);
+		}
+		out.append("\")\n");
+	}
+
+	/**
+	 * Write a qualifier declaration.
+	 * @param decl qualifier declaration to write
+	 * @throws IOException if the output fails
+	 */
+	public void write(QualifierDecl decl) throws IOException {
+		writeHeader();
+		out.append("\n\nQualifier ").append(decl.name).append(" : ").append(decl.type.name);
+		if(decl.type.isArray) {
+			out.append('[');
+			if(decl.type.arraySize > 0) {
+				out.append(Integer.toString(decl.type.arraySize));
+			}
+			out.append(']');
+		}
+		out.append(" = ");
+		writeValue(decl.defaultValue, decl.type);
+		if(decl.scopes != null && !decl.scopes.isEmpty()) {
+			out.append(",\n\tScope(");
+			writeList(decl.scopes);
+			out.append(')');
+		}
+		if(decl.flavors != null && !decl.flavors.isEmpty()) {
+			out.append(", \n\tFlavor(");
+			writeList(decl.flavors);
+			out.append(')');
+		}
+		out.append("\n;\n");
+	}
+
+	/**
+	 * Write a class declaration.
+	 * @param decl class declaration to write
+	 * @throws IOException if the output fails
+	 */
+	public void write(ClassDecl decl) throws IOException {
+		writeHeader();
+		out.append("\n\n");
+		writeQualifiers(decl.qualifiers);
+		out.append("\nclass ").append(decl.name).append(' ');
+		if(decl.parentClass != null) {
+			out.append(": ").append(decl.parentClass);
+		}
+		out.append(" {\n");
+		boolean first = true;
+		for(PropertyDecl p : decl.properties) {
+			if(!first) {
+				out.append(";\n");
+			}
+			first = false;
+			out.append('\t');
+			writeQualifiers(p.qualifiers);
+			out.append("\n\t").append(p.type.name).append(' ').append(p.name);
+		}
+		out.append(";\n}\n");
+	}
+
+	/**
+	 * Write an instance declaration.
+	 * @param decl instance declaration to write
+	 * @throws IOException if the output fails
+	 */
+	public void write(InstDecl decl) throws IOException {
+		writeHeader();
+		out.append("\n\ninstance of ").append(decl.className).append(' ');
+		if(decl.alias != null) {
+			out.append("as $").append(decl.alias);
+		}
+		out.append("\n{\n");
+		boolean first = true;
+		for(InstancePropertyDecl p : decl.properties) {
+			if(!first) {
+				out.append(";\n");
+			}
+			first = false;
+			out.append('\t').append(p.name).append(" = ");
+			if(p.value != null && !p.value.isEmpty()) {
+				writeValue(p.value, p.type);
+			}
+		}
+		out.append(";\n};\n");
+	}
+
+	/**
+	 * Write a value declaration. <code>null</code> is written if there is no value.
+	 * @param values List of values
+	 * @param type expected value type, or null if unknown
+	 * @throws IOException if the output fails
+	 * @see ValueFormatter
+	 */
+	public void writeValue(List<String> values, TypeDecl type) throws IOException {
+		ValueFormatter.append(out, values, type);
+	}
+
+	private void writeQualifiers(Collection<Qualifier> qualifiers) throws IOException {
+		out.append('[');
+		boolean first = true;
+		for(Qualifier q : qualifiers) {
+			if(!first) {
+				out.append(", ");
+			}
+			first = false;
+			out.append(q.name).append(' ');
+			ValueFormatter.appendParameter(out, q);
+		}
+		out.append(']');
+	}
+
+	private void writeList(Collection<String> items) throws IOException {
+		for(Iterator<String> it = items.iterator(); it.hasNext();) {
+			out.append(it.next());
+			if(it.hasNext()) {
+				out.append(", ");
+			}
+		}
+	}
+
+	/**
+	 * Flush the output, if it is flushable.
+	 */
+	public void flush() throws IOException {
+		if(out instanceof Flushable) {
+			((Flushable)out).flush();
+		}
+	}
+
+	/**
+	 * Close the output, if it is closeable.
+	 */
+	public void close() throws IOException {
+		if(out instanceof Closeable) {
+			((Closeable)out).close();
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.escapek.mofparser.compiled.CompiledSchema;
+import org.escapek.mofparser.compiled.CompiledSchemaWriter;
+
+/**
+ * Persistent cache of parsed MOF files, stored in a directory as compiled schemas.
+ * Each cached file is stored with a fingerprint made of the file path, charset, size, modification time
+ * and content hash. A cached file is used when its path, charset and size are unchanged, and either its
+ * modification time or its content hash is unchanged.
+ * <p>
+ * Cache files are written to a temporary file which is then renamed, so several processes can share
+ * a cache directory. Files containing errors are not cached. Included files are not part of the
+ * cached content: <code>#pragma include</code> directives are resolved again when a cached file is used.
+ * </p>
+ * @author nico
+ *
+ */
+public class ParseCache {
+	private static final int MAGIC = 0x4D4F4650;
+	private static final int VERSION = 1;
+	private static final String SUFFIX = ".mofp";
+
+	private File directory;
+	private AtomicInteger hits = new AtomicInteger();
+	private AtomicInteger misses = new AtomicInteger();
+
+	/**
+	 * @param directory cache directory, created if it doesn't exist
+	 */
+	public ParseCache(File directory) {
+		this.directory = directory;
+		directory.mkdirs();
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Return the number of parsed files found in the cache.
+	 */
+	public int getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Return the number of parsed files not found in the cache, or found with a different fingerprint.
+	 */
+	public int getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Remove all cached files.
+	 */
+	public void clear() {
+		File[] files = directory.listFiles();
+		if(files != null) {
+			for(File file : files) {
+				if(file.getName().endsWith(SUFFIX)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the cache entry of a MOF file. The file size and modification time are read immediately.
+	 */
+	Entry entry(File file, Charset charset) throws IOException {
+		return new Entry(file.getCanonicalFile(), charset);
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for(byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Cache entry of a MOF file.
+	 */
+	class Entry {
+		private File file;
+		private Charset charset;
+		private long size;
+		private long lastModified;
+		private byte[] hash;
+		private File cacheFile;
+
+		private Entry(File file, Charset charset) throws IOException {
+			this.file = file;
+			this.charset = charset;
+			size = file.length();
+			lastModified = file.lastModified();
+			String key = file.getPath() + '|' + charset.name();
+			cacheFile = new File(directory, hex(digest().digest(key.getBytes("UTF-8"))) + SUFFIX);
+		}
+
+		private byte[] hash() throws IOException {
+			if(hash == null) {
+				MessageDigest digest = digest();
+				InputStream in = new FileInputStream(file);
+				try {
+					byte[] buf = new byte[8192];
+					int numRead;
+					while((numRead = in.read(buf)) != -1) {
+						digest.update(buf, 0, numRead);
+					}
+				}
+				finally {
+					in.close();
+				}
+				hash = digest.digest();
+			}
+			return hash;
+		}
+
+		/**
+		 * Load the cached parse result.
+		 * @return cached compiled schema, or null if the file isn't cached or has changed.
+		 * The file content hash is then computed, before the file is parsed.
+		 */
+		CompiledSchema load() throws IOException {
+			CompiledSchema schema = null;
+			if(cacheFile.exists()) {
+				try {
+					schema = read();
+				}
+				catch (IOException e) {
+					//Unreadable cache files are replaced
+					schema = null;
+				}
+			}
+			if(schema == null) {
+				misses.incrementAndGet();
+				hash();
+			}
+			else {
+				hits.incrementAndGet();
+			}
+			return schema;
+		}
+
+		private CompiledSchema read() throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+			try {
+				if(raf.readInt() != MAGIC || raf.readInt() != VERSION
+						|| !raf.readUTF().equals(file.getPath()) || !raf.readUTF().equals(charset.name())
+						|| raf.readLong() != size) {
+					return null;
+				}
+				long cachedLastModified = raf.readLong();
+				byte[] cachedHash = new byte[raf.readUnsignedByte()];
+				raf.readFully(cachedHash);
+				if(cachedLastModified != lastModified && !Arrays.equals(cachedHash, hash())) {
+					return null;
+				}
+				FileChannel channel = raf.getChannel();
+				long position = raf.getFilePointer();
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position);
+				return new CompiledSchema(buffer);
+			}
+			finally {
+				raf.close();
+			}
+		}
+
+		/**
+		 * Store a parse result, with the fingerprint of the file before it was parsed.
+		 */
+		void store(CompiledSchemaWriter writer) throws IOException {
+			File tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+			try {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+				try {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeUTF(file.getPath());
+					out.writeUTF(charset.name());
+					out.writeLong(size);
+					out.writeLong(lastModified);
+					out.writeByte(hash().length);
+					out.write(hash());
+					writer.write(out);
+				}
+				finally {
+					out.close();
+				}
+				if(!tmpFile.renameTo(cacheFile)) {
+					//Renaming doesn't replace existing files on some platforms
+					cacheFile.delete();
+					tmpFile.renameTo(cacheFile);
+				}
+			}
+			finally {
+				tmpFile.delete();
+			}
+		}
+	}
+}
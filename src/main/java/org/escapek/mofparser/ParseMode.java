@@ -0,0 +1,45 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+/**
+ * Enumerates available parsing modes.
+ * @author nico
+ *
+ */
+public enum ParseMode {
+	/**
+	 * The whole MOF specification is parsed into an AST, which is then walked to send
+	 * events to the handler.
+	 */
+	TREE,
+
+	/**
+	 * Productions are parsed one at a time. Each production AST is walked as soon as it
+	 * has been parsed, then dropped, so memory depends on the largest production instead
+	 * of the whole specification.
+	 */
+	INCREMENTAL,
+
+	/**
+	 * Declarations are built while parsing, and events are sent to the handler
+	 * as soon as each production has been parsed. No AST is built.
+	 */
+	DIRECT;
+}
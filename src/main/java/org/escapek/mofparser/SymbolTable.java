@@ -0,0 +1,313 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.escapek.mofparser.decl.FlavorSet;
+import org.escapek.mofparser.decl.FoldedName;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.TypeDecl;
+
+/**
+ * Table of the identifiers found in MOF documents: class, property, qualifier and reference class names.
+ * Each distinct name is stored once with its folded hash, so declarations parsed with the same table 
+ * share name instances and don't hash their names again. MOF names are case insensitive: names differing 
+ * only by case are the same symbol, spelled as the first time it was stored.
+ * <p>
+ * A table created to share declarations also stores qualifiers without value or with short values, 
+ * such as <code>[Key]</code> or <code>[Override("Name")]</code>, and scalar and unbounded array types, 
+ * so identical qualifiers and types are shared by every declaration parsed with the table.
+ * Shared qualifiers have unmodifiable value and flavor collections, but their fields, and the fields
+ * of shared types, can still be assigned: every handler receiving declarations parsed with such a 
+ * table must treat them as read-only. By default, tables only share names.
+ * </p>
+ * <p>
+ * A table never removes what it stores, so its size is bounded: once a table holds its maximum
+ * number of names or qualifiers, new ones are returned as is instead of being stored.
+ * </p>
+ * This class is thread-safe, and a table can be shared by several parsers.
+ * @author nico
+ *
+ */
+public class SymbolTable {
+	private static final int SEGMENT_COUNT = 16;
+
+	/**
+	 * Maximum length of the values of shared qualifiers. Qualifiers with longer values, 
+	 * like descriptions, are rarely identical.
+	 */
+	public static final int MAX_SHARED_VALUE_LENGTH = 64;
+
+	/**
+	 * Default maximum number of names, and of qualifiers, stored in a table.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 65536;
+
+	private Segment[] segments;
+	private final boolean shareDeclarations;
+	private final int maxSize;
+	private final AtomicInteger names = new AtomicInteger();
+	private ConcurrentHashMap<QualifierKey, Qualifier> qualifiers = new ConcurrentHashMap<QualifierKey, Qualifier>();
+	private TypeDecl[] scalarTypes;
+	private TypeDecl[] arrayTypes;
+
+	/**
+	 * Create a table sharing names only.
+	 */
+	public SymbolTable() {
+		this(DEFAULT_MAX_SIZE, false);
+	}
+
+	/**
+	 * Create a table.
+	 * @param shareDeclarations true to also share qualifiers and types, which must then be
+	 * treated as read-only
+	 */
+	public SymbolTable(boolean shareDeclarations) {
+		this(DEFAULT_MAX_SIZE, shareDeclarations);
+	}
+
+	/**
+	 * Create a table.
+	 * @param maxSize maximum number of names, and of qualifiers, stored in the table
+	 * @param shareDeclarations true to also share qualifiers and types, which must then be
+	 * treated as read-only
+	 */
+	public SymbolTable(int maxSize, boolean shareDeclarations) {
+		this.maxSize = maxSize;
+		this.shareDeclarations = shareDeclarations;
+		segments = new Segment[SEGMENT_COUNT];
+		for(int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(names, maxSize);
+		}
+		if(shareDeclarations) {
+			scalarTypes = new TypeDecl[DataType.values().length];
+			arrayTypes = new TypeDecl[DataType.values().length];
+			for(DataType type : DataType.values()) {
+				scalarTypes[type.ordinal()] = new TypeDecl(type.toString());
+				arrayTypes[type.ordinal()] = new TypeDecl(type.toString());
+				arrayTypes[type.ordinal()].isArray = true;
+				arrayTypes[type.ordinal()].arraySize = -1;
+			}
+		}
+	}
+
+	/**
+	 * Tell if the table shares qualifiers and types.
+	 */
+	public boolean isShareDeclarations() {
+		return shareDeclarations;
+	}
+
+	/**
+	 * Get the canonical instance of a name.
+	 * @param name name to look up
+	 * @return the name instance stored in the table, equal to the given name ignoring case, 
+	 * or null if name is null
+	 */
+	public String intern(String name) {
+		if(name == null) {
+			return null;
+		}
+		return symbol(name).name;
+	}
+
+	/**
+	 * Get the canonical instance of a name, with its folded hash.
+	 * @param name name to look up, not null
+	 * @return the name stored in the table, equal to the given name ignoring case
+	 */
+	public FoldedName symbol(String name) {
+		int hash = FoldedName.foldedHash(name);
+		int spread = hash ^ (hash >>> 16);
+		return segments[spread >>> 28].intern(name, hash, spread);
+	}
+
+	/**
+	 * Get the shared instance of a qualifier. Qualifiers with a type or with long values are not shared.
+	 * @param qualifier qualifier to look up
+	 * @return the qualifier instance stored in the table, equal to the given qualifier, 
+	 * or the given qualifier if it can't be shared or if the table doesn't share declarations
+	 */
+	public Qualifier internQualifier(Qualifier qualifier) {
+		if(!shareDeclarations || qualifier == null || qualifier.type != null || qualifier.name == null || qualifier.flavors == null) {
+			return qualifier;
+		}
+		if(qualifier.value != null) {
+			int length = 0;
+			for(String value : qualifier.value) {
+				length += value == null ? 0 : value.length();
+			}
+			if(length > MAX_SHARED_VALUE_LENGTH) {
+				return qualifier;
+			}
+		}
+		Qualifier shared = qualifiers.get(new QualifierKey(qualifier));
+		if(shared == null) {
+			if(qualifiers.size() >= maxSize) {
+				return qualifier;
+			}
+			shared = new Qualifier();
+			shared.setName(symbol(qualifier.name));
+			shared.type = null;
+			shared.valueType = qualifier.valueType;
+			shared.value = qualifier.value == null ? null : 
+				Collections.unmodifiableList(new ArrayList<String>(qualifier.value));
+			shared.flavors = Collections.unmodifiableSet(new FlavorSet(qualifier.flavors));
+			Qualifier previous = qualifiers.putIfAbsent(new QualifierKey(shared), shared);
+			if(previous != null) {
+				shared = previous;
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Get a type declaration. If the table shares declarations, scalar and unbounded array types
+	 * are shared, otherwise a new type is built.
+	 * @param dataType data type, other than reference
+	 * @param isArray true for an array type
+	 * @param arraySize array size, or -1 for an unbounded array
+	 */
+	public TypeDecl type(DataType dataType, boolean isArray, int arraySize) {
+		if(shareDeclarations && !isArray) {
+			return scalarTypes[dataType.ordinal()];
+		}
+		if(shareDeclarations && arraySize == -1) {
+			return arrayTypes[dataType.ordinal()];
+		}
+		TypeDecl tDecl = new TypeDecl(dataType.toString());
+		tDecl.isArray = isArray;
+		tDecl.arraySize = arraySize;
+		return tDecl;
+	}
+
+	/**
+	 * Return the number of names stored in the table.
+	 */
+	public int size() {
+		return names.get();
+	}
+
+	/**
+	 * Qualifier identity: name ignoring case, values, flavors and type of values as written.
+	 */
+	private static final class QualifierKey {
+		private final String name;
+		private final TypeDecl valueType;
+		private final List<String> value;
+		private final Set<String> flavors;
+		private final int hash;
+
+		QualifierKey(Qualifier qualifier) {
+			name = qualifier.name;
+			valueType = qualifier.valueType;
+			value = qualifier.value;
+			flavors = qualifier.flavors;
+			hash = (qualifier.hashCode() * 31 + (value == null ? 0 : value.hashCode())) * 31 + flavors.hashCode();
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object obj) {
+			if(!(obj instanceof QualifierKey)) {
+				return false;
+			}
+			QualifierKey key = (QualifierKey) obj;
+			return hash == key.hash && name.equalsIgnoreCase(key.name) && flavors.equals(key.flavors)
+				&& sameType(valueType, key.valueType)
+				&& (value == null ? key.value == null : value.equals(key.value));
+		}
+	}
+
+	private static boolean sameType(TypeDecl type, TypeDecl other) {
+		if(type == null || other == null) {
+			return type == other;
+		}
+		return type.isArray == other.isArray && type.arraySize == other.arraySize 
+			&& (type.name == null ? other.name == null : type.name.equals(other.name));
+	}
+
+	private static class Entry {
+		final FoldedName name;
+		Entry next;
+
+		Entry(FoldedName name, Entry next) {
+			this.name = name;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Part of the table, locked independently so concurrent parses rarely wait for each other.
+	 */
+	private static class Segment {
+		private Entry[] buckets = new Entry[64];
+		private int size;
+		private final AtomicInteger tableSize;
+		private final int maxSize;
+
+		Segment(AtomicInteger tableSize, int maxSize) {
+			this.tableSize = tableSize;
+			this.maxSize = maxSize;
+		}
+
+		synchronized FoldedName intern(String name, int hash, int spread) {
+			int index = spread & (buckets.length - 1);
+			for(Entry entry = buckets[index]; entry != null; entry = entry.next) {
+				if(entry.name.hash == hash && entry.name.name.equalsIgnoreCase(name)) {
+					return entry.name;
+				}
+			}
+			FoldedName symbol = new FoldedName(name);
+			if(tableSize.get() >= maxSize) {
+				return symbol;
+			}
+			buckets[index] = new Entry(symbol, buckets[index]);
+			tableSize.incrementAndGet();
+			if(++size > buckets.length * 3 / 4) {
+				resize();
+			}
+			return symbol;
+		}
+
+		private void resize() {
+			Entry[] newBuckets = new Entry[buckets.length * 2];
+			for(Entry entry : buckets) {
+				while(entry != null) {
+					Entry next = entry.next;
+					int hash = entry.name.hash;
+					int index = (hash ^ (hash >>> 16)) & (newBuckets.length - 1);
+					entry.next = newBuckets[index];
+					newBuckets[index] = entry;
+					entry = next;
+				}
+			}
+			buckets = newBuckets;
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.internal.StringEscapes;
+
+/**
+ * Formats values in MOF syntax.
+ * Strings, datetimes, references and char16 values are written as string literals (the grammar 
+ * reads a one character string literal as a char16 value), and numeric and boolean values as is. Array values are written between braces.
+ * Several values of a scalar string, like the parts of a multi-line string, and values whose type 
+ * is unknown are written as a single string literal.
+ * Formatting never modifies the given values. A formatter reuses its buffer between calls, 
+ * so an instance must not be shared between threads.
+ * @author nico
+ *
+ */
+public class ValueFormatter {
+	private final StringBuilder buffer = new StringBuilder();
+
+	/**
+	 * Format a value declaration. <code>null</code> is returned if there is no value.
+	 * @param values List of values
+	 * @param type expected value type, or null if unknown
+	 * @return formatted values
+	 */
+	public String format(List<String> values, TypeDecl type) {
+		buffer.setLength(0);
+		try {
+			append(buffer, values, type);
+		}
+		catch (IOException e) {
+			//StringBuilder doesn't throw IOException
+			throw new IllegalStateException(e);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Format the parameter of a qualifier: its value between parentheses, or its array value.
+	 * @param qualifier qualifier
+	 * @return formatted parameter, <code>()</code> if there is no value
+	 * @see #appendParameter(Appendable, Qualifier)
+	 */
+	public String formatParameter(Qualifier qualifier) {
+		buffer.setLength(0);
+		try {
+			appendParameter(buffer, qualifier);
+		}
+		catch (IOException e) {
+			//StringBuilder doesn't throw IOException
+			throw new IllegalStateException(e);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Append the parameter of a qualifier. Values are written with the qualifier type, or else 
+	 * with the type of values as they were parsed, so arrays are written between braces and 
+	 * numeric values without quotes.
+	 * @param out receives the formatted parameter
+	 * @param qualifier qualifier
+	 * @throws IOException if <code>out</code> fails
+	 */
+	public static void appendParameter(Appendable out, Qualifier qualifier) throws IOException {
+		TypeDecl type = qualifier.type != null ? qualifier.type : qualifier.valueType;
+		boolean hasValue = qualifier.value != null && !qualifier.value.isEmpty();
+		if(hasValue && type != null && type.isArray) {
+			append(out, qualifier.value, type);
+			return;
+		}
+		out.append('(');
+		if(hasValue) {
+			append(out, qualifier.value, type);
+		}
+		out.append(')');
+	}
+
+	/**
+	 * Append a value declaration. <code>null</code> is written if there is no value.
+	 * @param out receives formatted values
+	 * @param values List of values
+	 * @param type expected value type, or null if unknown
+	 * @throws IOException if <code>out</code> fails
+	 */
+	public static void append(Appendable out, List<String> values, TypeDecl type) throws IOException {
+		if(values == null || values.isEmpty()) {
+			out.append("null");
+			return;
+		}
+		if(type == null) {
+			//Qualifier values are parsed without their type
+			appendJoined(out, values);
+			return;
+		}
+
+		char quote = quote(type);
+		if(!type.isArray) {
+			if(quote == '"' && values.size() > 1) {
+				appendJoined(out, values);
+			}
+			else {
+				appendScalar(out, values.get(0), quote);
+			}
+			return;
+		}
+		out.append('{');
+		for(int i = 0; i < values.size(); i++) {
+			if(i > 0) {
+				out.append(", ");
+			}
+			appendScalar(out, values.get(i), quote);
+		}
+		out.append('}');
+	}
+
+	/**
+	 * Get the literal delimiter of a type, or 0 if its values are written without delimiter.
+	 */
+	private static char quote(TypeDecl type) {
+		if(type.isRef) {
+			return '"';
+		}
+		DataType dataType = type.name == null ? null : DataType.forName(type.name);
+		if(dataType == null) {
+			return '"';
+		}
+		switch(dataType) {
+		case CHAR16:
+		case STRING:
+		case DATETIME:
+		case REFERENCE:
+			return '"';
+		default:
+			return 0;
+		}
+	}
+
+	private static void appendJoined(Appendable out, List<String> values) throws IOException {
+		out.append('"');
+		for(String v : values) {
+			if(v != null) {
+				StringEscapes.encode(v, out);
+			}
+		}
+		out.append('"');
+	}
+
+	private static void appendScalar(Appendable out, String value, char quote) throws IOException {
+		if(value == null) {
+			out.append("null");
+		}
+		else if(quote == 0) {
+			out.append(value);
+		}
+		else {
+			out.append(quote);
+			StringEscapes.encode(value, out);
+			out.append(quote);
+		}
+	}
+}
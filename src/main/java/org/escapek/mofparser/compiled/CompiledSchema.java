@@ -0,0 +1,383 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.compiled;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.escapek.mofparser.CompilerDirective;
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.Production;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.decl.Values;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * Compiled schema written by {@link CompiledSchemaWriter}. Files are memory mapped, and declarations
+ * are read only when they are requested, so loading a schema doesn't depend on its size once its
+ * checksum is verified. Each call to {@link #get(int)} returns new declaration instances.
+ * This class is thread-safe.
+ * @author nico
+ *
+ */
+public class CompiledSchema {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Production[] PRODUCTIONS = Production.values();
+
+	private ByteBuffer buffer;
+	private int declCount;
+	private int stringsOffset;
+	private int stringDataOffset;
+	private int indexOffset;
+	private String[] strings;
+
+	/**
+	 * Load a compiled schema from a buffer.
+	 * @param buffer compiled schema content, from the buffer position to its limit
+	 * @throws IOException if the content is not a valid compiled schema
+	 */
+	public CompiledSchema(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer.slice();
+		if(this.buffer.limit() < CompiledSchemaWriter.HEADER_SIZE
+				|| this.buffer.getInt(0) != CompiledSchemaWriter.MAGIC) {
+			throw new IOException("Not a compiled MOF schema");
+		}
+		int version = this.buffer.getInt(4);
+		if(version != CompiledSchemaWriter.VERSION) {
+			throw new IOException("Unsupported compiled MOF schema version: " + version);
+		}
+		if(checksum() != this.buffer.getInt(8)) {
+			throw new IOException("Compiled MOF schema checksum mismatch");
+		}
+		strings = new String[this.buffer.getInt(12)];
+		declCount = this.buffer.getInt(16);
+		stringsOffset = this.buffer.getInt(20);
+		indexOffset = this.buffer.getInt(24);
+		stringDataOffset = stringsOffset + 4 * (strings.length + 1);
+	}
+
+	/**
+	 * Load a compiled schema file.
+	 * @param file compiled schema file, which is memory mapped
+	 * @return compiled schema
+	 * @throws IOException if the file can't be read or is not a valid compiled schema
+	 */
+	public static CompiledSchema open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return new CompiledSchema(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	private int checksum() {
+		CRC32 crc = new CRC32();
+		ByteBuffer content = buffer.duplicate();
+		content.position(CompiledSchemaWriter.HEADER_SIZE);
+		byte[] buf = new byte[8192];
+		while(content.hasRemaining()) {
+			int length = Math.min(buf.length, content.remaining());
+			content.get(buf, 0, length);
+			crc.update(buf, 0, length);
+		}
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Return the number of declarations.
+	 */
+	public int size() {
+		return declCount;
+	}
+
+	/**
+	 * Get the production type of a declaration.
+	 * @param index declaration index
+	 * @return production type
+	 */
+	public Production getProduction(int index) {
+		checkIndex(index);
+		return PRODUCTIONS[buffer.get(indexOffset + index * CompiledSchemaWriter.INDEX_ENTRY_SIZE)];
+	}
+
+	/**
+	 * Get the name of a declaration: the directive name for compiler directives, 
+	 * the class name for instances.
+	 * @param index declaration index
+	 * @return declaration name
+	 */
+	public String getName(int index) {
+		checkIndex(index);
+		return string(buffer.getInt(indexOffset + index * CompiledSchemaWriter.INDEX_ENTRY_SIZE + 1));
+	}
+
+	/**
+	 * Read a declaration.
+	 * @param index declaration index
+	 * @return a new <code>PragmaDecl</code>, <code>QualifierDecl</code>, <code>ClassDecl</code> 
+	 * or <code>InstDecl</code> instance, depending on the declaration production type
+	 */
+	public Object get(int index) {
+		Production production = getProduction(index);
+		Reader reader = new Reader(buffer.getInt(indexOffset + index * CompiledSchemaWriter.INDEX_ENTRY_SIZE + 5));
+		switch(production) {
+		case compilerDirective:
+			return reader.readPragma();
+		case qualifierDeclaration:
+			return reader.readQualifierDecl();
+		case classDeclaration:
+			return reader.readClass();
+		default:
+			return reader.readInstance();
+		}
+	}
+
+	/**
+	 * Find a class declaration by its name, without reading other declarations.
+	 * @param name class name, compared ignoring case
+	 * @return class declaration, or null if not found
+	 */
+	public ClassDecl getClass(String name) {
+		for(int i = 0; i < declCount; i++) {
+			if(getProduction(i) == Production.classDeclaration && name.equalsIgnoreCase(getName(i))) {
+				return (ClassDecl) get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Send every declaration to a handler, with the same events as when parsing the original document.
+	 * @param handler handler receiving the events
+	 * @throws MOFParserException if thrown by the handler
+	 */
+	public void replay(IContentHandler handler) throws MOFParserException {
+		handler.startDocument();
+		replayDeclarations(handler);
+		handler.endDocument();
+	}
+
+	/**
+	 * Send every declaration to a handler, without document events, as part of another document.
+	 * @param handler handler receiving the events
+	 * @throws MOFParserException if thrown by the handler
+	 */
+	public void replayDeclarations(IContentHandler handler) throws MOFParserException {
+		for(int i = 0; i < declCount; i++) {
+			Object decl = get(i);
+			handler.startProduction(getProduction(i));
+			if(decl instanceof PragmaDecl) {
+				PragmaDecl pDecl = (PragmaDecl) decl;
+				handler.startCompilerDirective();
+				handler.compilerDirective(pDecl);
+				if(CompilerDirective.include.equals(pDecl.directive)) {
+					handler.include(pDecl.parameter);
+				}
+				handler.endCompilerDirective();
+			}
+			else if(decl instanceof QualifierDecl) {
+				handler.startQualifierDeclaration();
+				handler.qualifierDeclaration((QualifierDecl) decl);
+				handler.endQualifierDeclaration();
+			}
+			else if(decl instanceof ClassDecl) {
+				handler.startClassDeclaration();
+				handler.classDeclaration((ClassDecl) decl);
+				handler.endClassDeclaration();
+			}
+			else {
+				handler.startInstanceDeclaration();
+				handler.instanceDeclaration((InstDecl) decl);
+				handler.endInstanceDeclaration();
+			}
+			handler.endProduction();
+		}
+	}
+
+	private void checkIndex(int index) {
+		if(index < 0 || index >= declCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + declCount);
+		}
+	}
+
+	private String string(int index) {
+		if(index < 0) {
+			return null;
+		}
+		String value = strings[index];
+		if(value == null) {
+			int start = buffer.getInt(stringsOffset + 4 * index);
+			int end = buffer.getInt(stringsOffset + 4 * (index + 1));
+			ByteBuffer bytes = buffer.duplicate();
+			bytes.position(stringDataOffset + start);
+			bytes.limit(stringDataOffset + end);
+			value = UTF8.decode(bytes).toString();
+			strings[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a declaration record, using absolute buffer accesses so readers don't share state.
+	 */
+	private class Reader {
+		private int position;
+
+		Reader(int position) {
+			this.position = position;
+		}
+
+		private int readInt() {
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		private String readString() {
+			return string(readInt());
+		}
+
+		private List<String> readList() {
+			int count = readInt();
+			if(count < 0) {
+				return null;
+			}
+			List<String> values = new ArrayList<String>(count);
+			readStrings(values, count);
+			return values;
+		}
+
+		private Set<String> readSet(Set<String> values) {
+			int count = readInt();
+			if(count < 0) {
+				return null;
+			}
+			readStrings(values, count);
+			return values;
+		}
+
+		private void readStrings(Collection<String> values, int count) {
+			for(int i = 0; i < count; i++) {
+				values.add(readString());
+			}
+		}
+
+		private TypeDecl readType() {
+			int flags = buffer.get(position++);
+			if(flags == 0) {
+				return null;
+			}
+			TypeDecl type = new TypeDecl(readString());
+			type.refClass = readString();
+			type.arraySize = readInt();
+			type.isRef = (flags & CompiledSchemaWriter.TYPE_REF) != 0;
+			type.isArray = (flags & CompiledSchemaWriter.TYPE_ARRAY) != 0;
+			return type;
+		}
+
+		PragmaDecl readPragma() {
+			String directive = readString();
+			return new PragmaDecl(directive == null ? null : CompilerDirective.valueOf(directive), readString());
+		}
+
+		QualifierDecl readQualifierDecl() {
+			QualifierDecl decl = new QualifierDecl();
+			decl.name = readString();
+			decl.type = readType();
+			decl.defaultValue = Values.of(decl.type, readList());
+			decl.scopes = readSet(decl.scopes);
+			decl.flavors = readSet(decl.flavors);
+			return decl;
+		}
+
+		private Set<Qualifier> readQualifiers(Set<Qualifier> qualifiers) {
+			int count = readInt();
+			if(count < 0) {
+				return null;
+			}
+			for(int i = 0; i < count; i++) {
+				Qualifier qualifier = new Qualifier(readString());
+				qualifier.type = readType();
+				qualifier.valueType = readType();
+				qualifier.value = readList();
+				qualifier.flavors = readSet(qualifier.flavors);
+				qualifiers.add(qualifier);
+			}
+			return qualifiers;
+		}
+
+		ClassDecl readClass() {
+			ClassDecl decl = new ClassDecl();
+			decl.name = readString();
+			decl.parentClass = readString();
+			decl.qualifiers = readQualifiers(decl.qualifiers);
+			int count = readInt();
+			if(count < 0) {
+				decl.properties = null;
+				return decl;
+			}
+			for(int i = 0; i < count; i++) {
+				PropertyDecl property = new PropertyDecl(readString());
+				property.type = readType();
+				property.value = Values.of(property.type, readList());
+				property.qualifiers = readQualifiers(property.qualifiers);
+				decl.properties.add(property);
+			}
+			return decl;
+		}
+
+		InstDecl readInstance() {
+			InstDecl decl = new InstDecl();
+			decl.className = readString();
+			decl.alias = readString();
+			int count = readInt();
+			if(count < 0) {
+				decl.properties = null;
+				return decl;
+			}
+			for(int i = 0; i < count; i++) {
+				InstancePropertyDecl property = new InstancePropertyDecl();
+				property.name = readString();
+				property.type = readType();
+				property.value = Values.of(property.type, readList());
+				decl.properties.add(property);
+			}
+			return decl;
+		}
+	}
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.compiled;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.Production;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * MOF event handler writing the declarations it receives in the compiled schema format,
+ * which can be loaded by {@link CompiledSchema}.
+ * Declarations are kept in the order they are received and written by {@link #write(OutputStream)}.
+ * Errors are thrown, as for {@link org.escapek.mofparser.helpers.DefaultHandler}.
+ * <p>
+ * The file starts with a header containing the format magic number and version, the CRC32 checksum of
+ * the content following the header, the number of strings and declarations, and the offsets of the
+ * string table and of the declaration index. Every string is stored once in the string table, and
+ * declarations refer to strings by their index. The declaration index gives the production type,
+ * the name and the offset of each declaration, so a declaration can be read without reading the others.
+ * </p>
+ * @author nico
+ *
+ */
+public class CompiledSchemaWriter implements IContentHandler {
+	/**
+	 * Compiled schema magic number: "MOFC".
+	 */
+	public static final int MAGIC = 0x4D4F4643;
+
+	/**
+	 * Compiled schema format version.
+	 */
+	public static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 28;
+	static final int INDEX_ENTRY_SIZE = 9;
+
+	static final int TYPE_PRESENT = 1;
+	static final int TYPE_REF = 2;
+	static final int TYPE_ARRAY = 4;
+
+	private List<Object> decls;
+	private Map<String, Integer> stringIndex;
+	private List<String> strings;
+
+	public CompiledSchemaWriter() {
+		decls = new ArrayList<Object>();
+	}
+
+	/**
+	 * Return the number of declarations received.
+	 */
+	public int size() {
+		return decls.size();
+	}
+
+	/**
+	 * Write received declarations to a file.
+	 * @param file compiled schema file
+	 * @throws IOException if the file can't be written
+	 */
+	public void write(File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			write(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Write received declarations to a stream. The stream is not closed.
+	 * @param out output stream
+	 * @throws IOException if the stream can't be written
+	 */
+	public void write(OutputStream out) throws IOException {
+		stringIndex = new HashMap<String, Integer>();
+		strings = new ArrayList<String>();
+
+		//Declarations are written first, so the string table is complete
+		ByteArrayOutputStream declBytes = new ByteArrayOutputStream();
+		DataOutputStream declOut = new DataOutputStream(declBytes);
+		int[] kinds = new int[decls.size()];
+		int[] names = new int[decls.size()];
+		int[] offsets = new int[decls.size()];
+		for(int i = 0; i < decls.size(); i++) {
+			offsets[i] = declOut.size();
+			Object decl = decls.get(i);
+			if(decl instanceof PragmaDecl) {
+				PragmaDecl pDecl = (PragmaDecl) decl;
+				kinds[i] = Production.compilerDirective.ordinal();
+				names[i] = string(pDecl.directive == null ? null : pDecl.directive.name());
+				writePragma(declOut, pDecl);
+			}
+			else if(decl instanceof QualifierDecl) {
+				QualifierDecl qDecl = (QualifierDecl) decl;
+				kinds[i] = Production.qualifierDeclaration.ordinal();
+				names[i] = string(qDecl.name);
+				writeQualifierDecl(declOut, qDecl);
+			}
+			else if(decl instanceof ClassDecl) {
+				ClassDecl cDecl = (ClassDecl) decl;
+				kinds[i] = Production.classDeclaration.ordinal();
+				names[i] = string(cDecl.name);
+				writeClass(declOut, cDecl);
+			}
+			else {
+				InstDecl iDecl = (InstDecl) decl;
+				kinds[i] = Production.instanceDeclaration.ordinal();
+				names[i] = string(iDecl.className);
+				writeInstance(declOut, iDecl);
+			}
+		}
+
+		ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+		int[] stringOffsets = new int[strings.size() + 1];
+		for(int i = 0; i < strings.size(); i++) {
+			stringOffsets[i] = stringBytes.size();
+			byte[] bytes = strings.get(i).getBytes("UTF-8");
+			stringBytes.write(bytes, 0, bytes.length);
+		}
+		stringOffsets[strings.size()] = stringBytes.size();
+
+		int stringsOffset = HEADER_SIZE;
+		int indexOffset = stringsOffset + 4 * stringOffsets.length + stringBytes.size();
+		int declsOffset = indexOffset + INDEX_ENTRY_SIZE * decls.size();
+
+		ByteArrayOutputStream contentBytes = new ByteArrayOutputStream(declsOffset - HEADER_SIZE + declBytes.size());
+		DataOutputStream content = new DataOutputStream(contentBytes);
+		for(int offset : stringOffsets) {
+			content.writeInt(offset);
+		}
+		stringBytes.writeTo(content);
+		for(int i = 0; i < decls.size(); i++) {
+			content.writeByte(kinds[i]);
+			content.writeInt(names[i]);
+			content.writeInt(declsOffset + offsets[i]);
+		}
+		declBytes.writeTo(content);
+		content.flush();
+
+		byte[] body = contentBytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(body);
+
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeInt(VERSION);
+		header.writeInt((int) crc.getValue());
+		header.writeInt(strings.size());
+		header.writeInt(decls.size());
+		header.writeInt(stringsOffset);
+		header.writeInt(indexOffset);
+		header.write(body);
+		header.flush();
+
+		stringIndex = null;
+		strings = null;
+	}
+
+	private int string(String value) {
+		if(value == null) {
+			return -1;
+		}
+		Integer index = stringIndex.get(value);
+		if(index == null) {
+			index = strings.size();
+			strings.add(value);
+			stringIndex.put(value, index);
+		}
+		return index;
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeInt(string(value));
+	}
+
+	private void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+		if(values == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(values.size());
+		for(String value : values) {
+			writeString(out, value);
+		}
+	}
+
+	private void writeType(DataOutputStream out, TypeDecl type) throws IOException {
+		if(type == null) {
+			out.writeByte(0);
+			return;
+		}
+		int flags = TYPE_PRESENT;
+		if(type.isRef) {
+			flags |= TYPE_REF;
+		}
+		if(type.isArray) {
+			flags |= TYPE_ARRAY;
+		}
+		out.writeByte(flags);
+		writeString(out, type.name);
+		writeString(out, type.refClass);
+		out.writeInt(type.arraySize);
+	}
+
+	private void writePragma(DataOutputStream out, PragmaDecl decl) throws IOException {
+		writeString(out, decl.directive == null ? null : decl.directive.name());
+		writeString(out, decl.parameter);
+	}
+
+	private void writeQualifierDecl(DataOutputStream out, QualifierDecl decl) throws IOException {
+		writeString(out, decl.name);
+		writeType(out, decl.type);
+		writeStrings(out, decl.defaultValue);
+		writeStrings(out, decl.scopes);
+		writeStrings(out, decl.flavors);
+	}
+
+	private void writeQualifiers(DataOutputStream out, Collection<Qualifier> qualifiers) throws IOException {
+		if(qualifiers == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(qualifiers.size());
+		for(Qualifier qualifier : qualifiers) {
+			writeString(out, qualifier.name);
+			writeType(out, qualifier.type);
+			writeType(out, qualifier.valueType);
+			writeStrings(out, qualifier.value);
+			writeStrings(out, qualifier.flavors);
+		}
+	}
+
+	private void writeClass(DataOutputStream out, ClassDecl decl) throws IOException {
+		writeString(out, decl.name);
+		writeString(out, decl.parentClass);
+		writeQualifiers(out, decl.qualifiers);
+		if(decl.properties == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(decl.properties.size());
+		for(PropertyDecl property : decl.properties) {
+			writeString(out, property.name);
+			writeType(out, property.type);
+			writeStrings(out, property.value);
+			writeQualifiers(out, property.qualifiers);
+		}
+	}
+
+	private void writeInstance(DataOutputStream out, InstDecl decl) throws IOException {
+		writeString(out, decl.className);
+		writeString(out, decl.alias);
+		if(decl.properties == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(decl.properties.size());
+		for(InstancePropertyDecl property : decl.properties) {
+			writeString(out, property.name);
+			writeType(out, property.type);
+			writeStrings(out, property.value);
+		}
+	}
+
+	public void startDocument() {
+	}
+
+	public void endDocument() {
+	}
+
+	public void error(MOFParserException ex) throws MOFParserException {
+		throw ex;
+	}
+
+	public void startProduction(Production productionType) {
+	}
+
+	public void endProduction() {
+	}
+
+	public void startCompilerDirective() {
+	}
+
+	public void compilerDirective(PragmaDecl decl) {
+		decls.add(decl);
+	}
+
+	public void endCompilerDirective() {
+	}
+
+	public void startQualifierDeclaration() {
+	}
+
+	public void qualifierDeclaration(QualifierDecl decl) {
+		decls.add(decl);
+	}
+
+	public void endQualifierDeclaration() {
+	}
+
+	public void startClassDeclaration() {
+	}
+
+	public void classDeclaration(ClassDecl decl) {
+		decls.add(decl);
+	}
+
+	public void endClassDeclaration() {
+	}
+
+	public void include(String name) {
+	}
+
+	public void startInstanceDeclaration() {
+	}
+
+	public void instanceDeclaration(InstDecl decl) {
+		decls.add(decl);
+	}
+
+	public void endInstanceDeclaration() {
+	}
+}
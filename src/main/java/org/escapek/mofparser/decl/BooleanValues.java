@@ -0,0 +1,89 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list of boolean values, stored in a bit set.
+ * @see Values
+ * @author nico
+ *
+ */
+public class BooleanValues extends AbstractList<String> implements RandomAccess {
+	private final BitSet values;
+	private final int size;
+	private final boolean upperCase;
+
+	/**
+	 * @param values set bits are true values
+	 * @param size number of values
+	 * @param upperCase true if values are written <code>TRUE</code> and <code>FALSE</code>
+	 */
+	public BooleanValues(BitSet values, int size, boolean upperCase) {
+		this.values = (BitSet) values.clone();
+		this.size = size;
+		this.upperCase = upperCase;
+	}
+
+	/**
+	 * Parse boolean values.
+	 * @return the parsed values, or null if values are not all written in lower case or all in upper case
+	 */
+	static BooleanValues parse(List<String> strings) {
+		BitSet values = new BitSet(strings.size());
+		boolean upperCase = "TRUE".equals(strings.get(0)) || "FALSE".equals(strings.get(0));
+		String trueValue = upperCase ? "TRUE" : "true";
+		String falseValue = upperCase ? "FALSE" : "false";
+		for(int i = 0; i < strings.size(); i++) {
+			String s = strings.get(i);
+			if(trueValue.equals(s)) {
+				values.set(i);
+			}
+			else if(!falseValue.equals(s)) {
+				return null;
+			}
+		}
+		return new BooleanValues(values, strings.size(), upperCase);
+	}
+
+	public String get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		if(values.get(index)) {
+			return upperCase ? "TRUE" : "true";
+		}
+		return upperCase ? "FALSE" : "false";
+	}
+
+	public boolean getBoolean(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values.get(index);
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -18,7 +18,6 @@
  */
 package org.escapek.mofparser.decl;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -38,17 +37,51 @@ public class ClassDecl {
 	public String parentClass;
 	
 	/**
-	 * List of class qualifiers found.
+	 * List of class qualifiers found, in declaration order.
 	 */
 	public Set<Qualifier> qualifiers;
 	
 	/**
-	 * List of class properties.
+	 * List of class properties, in declaration order.
 	 */
 	public Set<PropertyDecl> properties;
 	
 	public ClassDecl() {
-		qualifiers = new HashSet<Qualifier>();
-		properties = new HashSet<PropertyDecl>();
+		qualifiers = NamedSet.qualifiers();
+		properties = NamedSet.properties();
+	}
+
+	/**
+	 * Get a class property by its name.
+	 * @param name property name, compared ignoring case
+	 * @return property, or null if the class has no such property
+	 */
+	public PropertyDecl getProperty(String name) {
+		if(properties instanceof NamedSet) {
+			return ((NamedSet<PropertyDecl>) properties).get(name);
+		}
+		for(PropertyDecl property : properties) {
+			if(property.name != null && property.name.equalsIgnoreCase(name)) {
+				return property;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get a class qualifier by its name.
+	 * @param name qualifier name, compared ignoring case
+	 * @return qualifier, or null if the class has no such qualifier
+	 */
+	public Qualifier getQualifier(String name) {
+		if(qualifiers instanceof NamedSet) {
+			return ((NamedSet<Qualifier>) qualifiers).get(name);
+		}
+		for(Qualifier qualifier : qualifiers) {
+			if(qualifier.name != null && qualifier.name.equalsIgnoreCase(name)) {
+				return qualifier;
+			}
+		}
+		return null;
 	}
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set storing its elements in an array, in insertion order. Declarations hold small sets,
+ * for which scanning an array is as fast as hashing and uses much less memory than a <code>HashSet</code>.
+ * Elements are compared using <code>equals</code>. This class is not thread-safe.
+ * @author nico
+ *
+ */
+public class CompactSet<E> extends AbstractSet<E> {
+	private static final Object[] EMPTY = new Object[0];
+
+	private Object[] elements;
+	private int size;
+	private int modCount;
+
+	public CompactSet() {
+		elements = EMPTY;
+	}
+
+	/**
+	 * Create a set containing the elements of a collection, in the collection iteration order.
+	 */
+	public CompactSet(Collection<? extends E> c) {
+		elements = new Object[c.size()];
+		addAll(c);
+	}
+
+	/**
+	 * Get an element by its insertion rank.
+	 * @param index element index, from 0 to <code>size() - 1</code>
+	 * @return element
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return (E) elements[index];
+	}
+
+	/**
+	 * Return the index of an element, or -1 if the set doesn't contain it.
+	 */
+	protected int indexOf(Object o) {
+		for(int i = 0; i < size; i++) {
+			if(o == null ? elements[i] == null : o.equals(elements[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	public boolean add(E e) {
+		if(indexOf(e) >= 0) {
+			return false;
+		}
+		if(size == elements.length) {
+			Object[] newElements = new Object[size < 4 ? 4 : size + (size >> 1)];
+			System.arraycopy(elements, 0, newElements, 0, size);
+			elements = newElements;
+		}
+		elements[size++] = e;
+		modCount++;
+		return true;
+	}
+
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if(index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	protected void removeAt(int index) {
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+		elements[--size] = null;
+		modCount++;
+	}
+
+	public void clear() {
+		for(int i = 0; i < size; i++) {
+			elements[i] = null;
+		}
+		size = 0;
+		modCount++;
+	}
+
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int next;
+			private int last = -1;
+			private int expectedModCount = modCount;
+
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			public E next() {
+				if(modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				if(next >= size) {
+					throw new NoSuchElementException();
+				}
+				last = next++;
+				return get(last);
+			}
+
+			public void remove() {
+				if(last < 0) {
+					throw new IllegalStateException();
+				}
+				if(modCount != expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				removeAt(last);
+				next = last;
+				last = -1;
+				expectedModCount = modCount;
+			}
+		};
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list of real values, stored in a <code>double</code> array.
+ * @see Values
+ * @author nico
+ *
+ */
+public class DoubleValues extends AbstractList<String> implements RandomAccess {
+	private final double[] values;
+
+	public DoubleValues(double[] values) {
+		this.values = values.clone();
+	}
+
+	/**
+	 * Parse real values.
+	 * @return the parsed values, or null if a value is not written as <code>Double.toString</code> would write it
+	 */
+	static DoubleValues parse(List<String> strings) {
+		double[] values = new double[strings.size()];
+		for(int i = 0; i < values.length; i++) {
+			String s = strings.get(i);
+			if(s == null) {
+				return null;
+			}
+			try {
+				values[i] = Double.parseDouble(s);
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+			if(!Double.toString(values[i]).equals(s)) {
+				return null;
+			}
+		}
+		return new DoubleValues(values);
+	}
+
+	public String get(int index) {
+		return Double.toString(values[index]);
+	}
+
+	public double getDouble(int index) {
+		return values[index];
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Return a copy of the values.
+	 */
+	public double[] toDoubleArray() {
+		return values.clone();
+	}
+}
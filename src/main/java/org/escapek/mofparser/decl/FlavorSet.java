@@ -0,0 +1,149 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.escapek.mofparser.FlavorType;
+
+/**
+ * Set of flavor names, stored as a bit mask of {@link FlavorType} values.
+ * Elements are the flavor type names, and are iterated in {@link FlavorType} order. 
+ * Adding a name which is not a flavor type name throws an <code>IllegalArgumentException</code>.
+ * @author nico
+ *
+ */
+public class FlavorSet extends AbstractSet<String> {
+	private static final FlavorType[] FLAVORS = FlavorType.values();
+
+	private int bits;
+
+	public FlavorSet() {
+	}
+
+	/**
+	 * Create a set containing the flavor names of a collection.
+	 */
+	public FlavorSet(Collection<String> c) {
+		addAll(c);
+	}
+
+	/**
+	 * Tell if the set contains a flavor.
+	 */
+	public boolean contains(FlavorType flavor) {
+		return (bits & (1 << flavor.ordinal())) != 0;
+	}
+
+	/**
+	 * Add a flavor to the set.
+	 * @return true if the set didn't contain the flavor
+	 */
+	public boolean add(FlavorType flavor) {
+		int oldBits = bits;
+		bits |= 1 << flavor.ordinal();
+		return bits != oldBits;
+	}
+
+	/**
+	 * Return the flavors of the set.
+	 */
+	public EnumSet<FlavorType> toEnumSet() {
+		EnumSet<FlavorType> flavors = EnumSet.noneOf(FlavorType.class);
+		for(FlavorType flavor : FLAVORS) {
+			if(contains(flavor)) {
+				flavors.add(flavor);
+			}
+		}
+		return flavors;
+	}
+
+	private static FlavorType flavor(Object o) {
+		if(o instanceof String) {
+			for(FlavorType flavor : FLAVORS) {
+				if(flavor.name().equals(o)) {
+					return flavor;
+				}
+			}
+		}
+		return null;
+	}
+
+	public int size() {
+		return Integer.bitCount(bits);
+	}
+
+	public boolean contains(Object o) {
+		FlavorType flavor = flavor(o);
+		return flavor != null && contains(flavor);
+	}
+
+	public boolean add(String e) {
+		FlavorType flavor = flavor(e);
+		if(flavor == null) {
+			throw new IllegalArgumentException("Unknown flavor: " + e);
+		}
+		return add(flavor);
+	}
+
+	public boolean remove(Object o) {
+		FlavorType flavor = flavor(o);
+		if(flavor == null || !contains(flavor)) {
+			return false;
+		}
+		bits &= ~(1 << flavor.ordinal());
+		return true;
+	}
+
+	public void clear() {
+		bits = 0;
+	}
+
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int remaining = bits;
+			private int last = -1;
+
+			public boolean hasNext() {
+				return remaining != 0;
+			}
+
+			public String next() {
+				if(remaining == 0) {
+					throw new NoSuchElementException();
+				}
+				last = Integer.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+				return FLAVORS[last].name();
+			}
+
+			public void remove() {
+				if(last < 0) {
+					throw new IllegalStateException();
+				}
+				bits &= ~(1 << last);
+				last = -1;
+			}
+		};
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+/**
+ * A declaration name with its hash code computed ignoring case, consistent with
+ * {@link String#equalsIgnoreCase(String)}.
+ * Names interned by a {@link org.escapek.mofparser.SymbolTable} are stored with their hash,
+ * which declarations named through the table reuse instead of hashing their name again.
+ * @author nico
+ *
+ */
+public final class FoldedName {
+	/**
+	 * Name, as spelled when first stored
+	 */
+	public final String name;
+
+	/**
+	 * Hash code of the name, ignoring case
+	 */
+	public final int hash;
+
+	public FoldedName(String name) {
+		this.name = name;
+		this.hash = foldedHash(name);
+	}
+
+	/**
+	 * Compute a hash code of a name, ignoring case. Names which are equal ignoring case
+	 * have the same folded hash.
+	 * @param name name to hash
+	 * @return folded hash code
+	 */
+	public static int foldedHash(String name) {
+		int hash = 0;
+		for(int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if(c < 128) {
+				if(c >= 'A' && c <= 'Z') {
+					c += 'a' - 'A';
+				}
+			}
+			else {
+				c = Character.toLowerCase(c);
+			}
+			hash = 31 * hash + c;
+		}
+		return hash;
+	}
+}
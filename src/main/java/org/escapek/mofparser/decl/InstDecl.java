@@ -18,7 +18,6 @@
  */
 package org.escapek.mofparser.decl;
 
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -43,6 +42,23 @@ public class InstDecl {
 	public Set<InstancePropertyDecl> properties;
 	
 	public InstDecl() {
-		properties = new HashSet<InstancePropertyDecl>();
+		properties = NamedSet.instanceProperties();
+	}
+
+	/**
+	 * Get an instance property by its name.
+	 * @param name property name, compared ignoring case
+	 * @return the first property with this name, or null if the instance has no such property
+	 */
+	public InstancePropertyDecl getProperty(String name) {
+		if(properties instanceof NamedSet) {
+			return ((NamedSet<InstancePropertyDecl>) properties).get(name);
+		}
+		for(InstancePropertyDecl property : properties) {
+			if(property.name != null && property.name.equalsIgnoreCase(name)) {
+				return property;
+			}
+		}
+		return null;
 	}
 }
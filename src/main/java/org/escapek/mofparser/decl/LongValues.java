@@ -0,0 +1,96 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list of integer values, stored in a <code>long</code> array.
+ * @see Values
+ * @author nico
+ *
+ */
+public class LongValues extends AbstractList<String> implements RandomAccess {
+	private final long[] values;
+
+	public LongValues(long[] values) {
+		this.values = values.clone();
+	}
+
+	/**
+	 * Parse decimal values.
+	 * @return the parsed values, or null if a value is not written as a decimal <code>long</code>
+	 */
+	static LongValues parse(List<String> strings) {
+		long[] values = new long[strings.size()];
+		for(int i = 0; i < values.length; i++) {
+			String s = strings.get(i);
+			if(!isDecimal(s)) {
+				return null;
+			}
+			try {
+				values[i] = Long.parseLong(s);
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return new LongValues(values);
+	}
+
+	/**
+	 * Tell if a value is written as <code>Long.toString</code> would write it.
+	 */
+	private static boolean isDecimal(String s) {
+		if(s == null) {
+			return false;
+		}
+		int start = s.startsWith("-") ? 1 : 0;
+		if(s.length() == start || (s.charAt(start) == '0' && s.length() > start + 1) || s.equals("-0")) {
+			return false;
+		}
+		for(int i = start; i < s.length(); i++) {
+			if(s.charAt(i) < '0' || s.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String get(int index) {
+		return Long.toString(values[index]);
+	}
+
+	public long getLong(int index) {
+		return values[index];
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Return a copy of the values.
+	 */
+	public long[] toLongArray() {
+		return values.clone();
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+/**
+ * Compact set of named declaration members, which can be looked up by name ignoring case.
+ * Small sets are scanned. Sets larger than {@link #INDEX_THRESHOLD} are indexed by the folded hash of 
+ * their element names, so lookups don't depend on the set size.
+ * Element names must not be modified while elements are in the set.
+ * @author nico
+ *
+ */
+public abstract class NamedSet<E> extends CompactSet<E> {
+	/**
+	 * Size above which element names are indexed.
+	 */
+	public static final int INDEX_THRESHOLD = 8;
+
+	private Class<E> type;
+	/** Open addressing table of element indexes + 1, 0 for free slots */
+	private int[] slots;
+	/** Folded name hash of each element */
+	private int[] hashes;
+
+	protected NamedSet(Class<E> type) {
+		this.type = type;
+	}
+
+	/**
+	 * Create a set of qualifiers.
+	 */
+	public static NamedSet<Qualifier> qualifiers() {
+		return new NamedSet<Qualifier>(Qualifier.class) {
+			protected String nameOf(Qualifier element) {
+				return element.name;
+			}
+
+			protected int hashOf(Qualifier element) {
+				return element.hashCode();
+			}
+		};
+	}
+
+	/**
+	 * Create a set of class properties.
+	 */
+	public static NamedSet<PropertyDecl> properties() {
+		return new NamedSet<PropertyDecl>(PropertyDecl.class) {
+			protected String nameOf(PropertyDecl element) {
+				return element.name;
+			}
+
+			protected int hashOf(PropertyDecl element) {
+				return element.hashCode();
+			}
+		};
+	}
+
+	/**
+	 * Create a set of instance properties.
+	 */
+	public static NamedSet<InstancePropertyDecl> instanceProperties() {
+		return new NamedSet<InstancePropertyDecl>(InstancePropertyDecl.class) {
+			protected String nameOf(InstancePropertyDecl element) {
+				return element.name;
+			}
+		};
+	}
+
+	/**
+	 * Get the name of an element.
+	 */
+	protected abstract String nameOf(E element);
+
+	/**
+	 * Get the folded hash of the name of an element, which must have a name.
+	 */
+	protected int hashOf(E element) {
+		return FoldedName.foldedHash(nameOf(element));
+	}
+
+	/**
+	 * Get an element by its name.
+	 * @param name element name, compared ignoring case
+	 * @return the first element added with this name, or null if not found
+	 */
+	public E get(String name) {
+		if(name == null) {
+			return null;
+		}
+		if(slots == null) {
+			for(int i = 0; i < size(); i++) {
+				if(name.equalsIgnoreCase(nameOf(get(i)))) {
+					return get(i);
+				}
+			}
+			return null;
+		}
+		int hash = FoldedName.foldedHash(name);
+		int found = -1;
+		for(int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+			int index = slots[slot] - 1;
+			if(hashes[index] == hash && (found < 0 || index < found) && name.equalsIgnoreCase(nameOf(get(index)))) {
+				found = index;
+			}
+		}
+		return found < 0 ? null : get(found);
+	}
+
+	/**
+	 * Find an element equal to the given object, among elements having the same name.
+	 */
+	protected int indexOf(Object o) {
+		if(slots == null || !type.isInstance(o) || nameOf(type.cast(o)) == null) {
+			return super.indexOf(o);
+		}
+		int hash = hashOf(type.cast(o));
+		for(int slot = hash & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+			int index = slots[slot] - 1;
+			if(hashes[index] == hash && o.equals(get(index))) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	public boolean add(E e) {
+		if(!super.add(e)) {
+			return false;
+		}
+		if(slots != null) {
+			if(size() * 2 > slots.length) {
+				buildIndex();
+			}
+			else {
+				addToIndex(size() - 1);
+			}
+		}
+		else if(size() > INDEX_THRESHOLD) {
+			buildIndex();
+		}
+		return true;
+	}
+
+	protected void removeAt(int index) {
+		super.removeAt(index);
+		slots = null;
+		hashes = null;
+		if(size() > INDEX_THRESHOLD) {
+			buildIndex();
+		}
+	}
+
+	public void clear() {
+		super.clear();
+		slots = null;
+		hashes = null;
+	}
+
+	private void buildIndex() {
+		//Tables are at most half full
+		int capacity = 16;
+		while(capacity < size() * 4) {
+			capacity <<= 1;
+		}
+		slots = new int[capacity];
+		hashes = new int[capacity / 2];
+		for(int i = 0; i < size(); i++) {
+			addToIndex(i);
+		}
+	}
+
+	private void addToIndex(int index) {
+		if(nameOf(get(index)) == null) {
+			//Elements without name are only found by scanning
+			hashes[index] = 0;
+			return;
+		}
+		int hash = hashOf(get(index));
+		hashes[index] = hash;
+		int slot = hash & (slots.length - 1);
+		while(slots[slot] != 0) {
+			slot = (slot + 1) & (slots.length - 1);
+		}
+		slots[slot] = index + 1;
+	}
+}
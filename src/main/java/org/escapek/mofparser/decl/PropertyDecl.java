@@ -19,7 +19,6 @@
 package org.escapek.mofparser.decl;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -40,7 +39,7 @@ public class PropertyDecl {
 	public TypeDecl type;
 	
 	/**
-	 * Property defaultValue
+	 * Property defaultValue. Numeric and boolean values built by the parser are typed, see {@link Values}.
 	 */
 	public List<String> value;
 
@@ -48,9 +47,12 @@ public class PropertyDecl {
 	 * List of qualifiers associated with the property declaration
 	 */
 	public Set<Qualifier> qualifiers;
+
+	/** Hash of name, kept while name is unchanged */
+	private FoldedName foldedName;
 	
 	public PropertyDecl() {
-		qualifiers = new HashSet<Qualifier>();
+		qualifiers = NamedSet.qualifiers();
 		value = new ArrayList<String>();
 	}
 
@@ -59,6 +61,32 @@ public class PropertyDecl {
 		this.name = propertyName;
 	}
 
+	/**
+	 * Set the property name, along with its folded hash.
+	 * @param name name, usually interned by a {@link org.escapek.mofparser.SymbolTable}
+	 */
+	public void setName(FoldedName name) {
+		this.name = name.name;
+		this.foldedName = name;
+	}
+
+	/**
+	 * Get a property qualifier by its name.
+	 * @param name qualifier name, compared ignoring case
+	 * @return qualifier, or null if the property has no such qualifier
+	 */
+	public Qualifier getQualifier(String name) {
+		if(qualifiers instanceof NamedSet) {
+			return ((NamedSet<Qualifier>) qualifiers).get(name);
+		}
+		for(Qualifier qualifier : qualifiers) {
+			if(qualifier.name != null && qualifier.name.equalsIgnoreCase(name)) {
+				return qualifier;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if(this == obj)
@@ -72,7 +100,13 @@ public class PropertyDecl {
 	@Override
 	public int hashCode() {
 		if(name != null) {
-			return name.hashCode();
+			//Consistent with equals, which ignores case
+			FoldedName folded = foldedName;
+			if(folded == null || folded.name != name) {
+				folded = new FoldedName(name);
+				foldedName = folded;
+			}
+			return folded.hash;
 		}
 		return super.hashCode();
 	}
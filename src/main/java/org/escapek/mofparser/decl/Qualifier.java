@@ -19,12 +19,13 @@
 package org.escapek.mofparser.decl;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Stores data read from a qualifier use.
+ * Qualifiers built by the parser are shared by declarations when the parser uses a 
+ * {@link org.escapek.mofparser.SymbolTable} sharing declarations. They must then be treated as read-only.
  * @author nico
  *
  */
@@ -41,6 +42,14 @@ public class Qualifier {
 	 */
 	public TypeDecl type;
 
+	/**
+	 * Type of the value as written, set by the parser as it doesn't know the qualifier declaration:
+	 * string, sint64, real64 or boolean literals, written as an array or not.
+	 * Used to generate the value as it was written when {@link #type} is null.
+	 * Null if unknown, or if the value is made of literals of different types.
+	 */
+	public TypeDecl valueType;
+
 	/**
 	 * Value given to the qualifier
 	 */
@@ -50,9 +59,12 @@ public class Qualifier {
 	 * List of flavors given to the qualifier
 	 */
 	public Set<String> flavors;
+
+	/** Hash of name, kept while name is unchanged */
+	private FoldedName foldedName;
 	
 	public Qualifier() {
-		flavors = new HashSet<String>();
+		flavors = new FlavorSet();
 		value = new ArrayList<String>();
 	}
 
@@ -61,6 +73,15 @@ public class Qualifier {
 		this.name = qualifierName;
 	}
 
+	/**
+	 * Set the qualifier name, along with its folded hash.
+	 * @param name name, usually interned by a {@link org.escapek.mofparser.SymbolTable}
+	 */
+	public void setName(FoldedName name) {
+		this.name = name.name;
+		this.foldedName = name;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if(this == obj)
@@ -74,7 +95,13 @@ public class Qualifier {
 	@Override
 	public int hashCode() {
 		if(name != null) {
-			return name.hashCode();
+			//Consistent with equals, which ignores case
+			FoldedName folded = foldedName;
+			if(folded == null || folded.name != name) {
+				folded = new FoldedName(name);
+				foldedName = folded;
+			}
+			return folded.hash;
 		}
 		return super.hashCode();
 	}
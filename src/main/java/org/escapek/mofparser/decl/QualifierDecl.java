@@ -19,7 +19,6 @@
 package org.escapek.mofparser.decl;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -40,7 +39,7 @@ public class QualifierDecl {
 	public TypeDecl type;
 	
 	/**
-	 * Default qualifier value
+	 * Default qualifier value. Numeric and boolean values built by the parser are typed, see {@link Values}.
 	 */
 	public List<String> defaultValue;
 	
@@ -55,8 +54,8 @@ public class QualifierDecl {
 	public Set<String> flavors;
 	
 	public QualifierDecl() {
-		scopes = new HashSet<String>();
-		flavors = new HashSet<String>();
+		scopes = new CompactSet<String>();
+		flavors = new FlavorSet();
 		defaultValue = new ArrayList<String>();
 	}
 }
@@ -22,6 +22,8 @@ package org.escapek.mofparser.decl;
 /**
  * Stores data read from a type declaration.
  * Type declaration are used in class property declaration, method parameters and Qualifiers declaration.
+ * Scalar and unbounded array types built by the parser are shared by declarations when the parser uses a
+ * {@link org.escapek.mofparser.SymbolTable} sharing declarations. They must then be treated as read-only.
  * @author nico
  *
  */
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.List;
+
+import org.escapek.mofparser.DataType;
+
+/**
+ * Builds typed value lists. Integer values are stored in a <code>long</code> array, real values in a 
+ * <code>double</code> array and boolean values in a bit set. Typed lists are unmodifiable
+ * <code>List&lt;String&gt;</code> views returning the values as they were written, and give access to 
+ * primitive values without parsing strings again.
+ * Values which can't be stored without changing their text, such as hexadecimal integers, 
+ * are kept as strings.
+ * @author nico
+ *
+ */
+public final class Values {
+	private Values() {
+	}
+
+	/**
+	 * Get a typed list of values.
+	 * @param type data type of the values
+	 * @param values values as strings
+	 * @return a {@link LongValues}, {@link DoubleValues} or {@link BooleanValues} instance, 
+	 * or the given list if values are strings or can't be typed
+	 */
+	public static List<String> of(DataType type, List<String> values) {
+		if(type == null || values == null || values.isEmpty()) {
+			return values;
+		}
+		List<String> typed = null;
+		switch(type) {
+		case UINT8: case SINT8: case UINT16: case SINT16:
+		case UINT32: case SINT32: case UINT64: case SINT64:
+			typed = LongValues.parse(values);
+			break;
+		case REAL32: case REAL64:
+			typed = DoubleValues.parse(values);
+			break;
+		case BOOLEAN:
+			typed = BooleanValues.parse(values);
+			break;
+		default:
+			break;
+		}
+		return typed == null ? values : typed;
+	}
+
+	/**
+	 * Get a typed list of values.
+	 * @param type type declaration of the values
+	 * @param values values as strings
+	 * @return typed values, or the given list if values are strings or can't be typed
+	 */
+	public static List<String> of(TypeDecl type, List<String> values) {
+		if(type == null || type.isRef || type.name == null) {
+			return values;
+		}
+		return of(DataType.forName(type.name), values);
+	}
+}
@@ -143,6 +143,36 @@ public class MOFParserException extends Exception {
 	 */
 	public static String INVALID_DATA_TYPE = 
 		"INVALID_DATA_TYPE";
+
+	/**
+	 * A file included by a <code>#pragma include</code> directive can't be found by the include resolver.
+	 * <code>arg1</code> contains the name of the included file.
+	 */
+	public static String INCLUDE_NOT_FOUND = 
+		"INCLUDE_NOT_FOUND";
+
+	/**
+	 * A file includes itself, directly or through other included files.
+	 * <code>arg1</code> contains the name of the included file.
+	 */
+	public static String INCLUDE_CYCLE = 
+		"INCLUDE_CYCLE";
+
+	/**
+	 * A file included by a <code>#pragma include</code> directive can't be read.
+	 * <code>arg1</code> contains the name of the included file, <code>arg2</code> the read exception.
+	 */
+	public static String INCLUDE_READ_ERROR = 
+		"INCLUDE_READ_ERROR";
+
+	/**
+	 * The scanner found characters which can't start a token, or an unterminated literal or comment.
+	 * These characters are skipped if the handler doesn't throw the exception.
+	 * <code>arg1</code> contains the error position as <code>line:column</code>, 
+	 * <code>arg2</code> a description of the error.
+	 */
+	public static String SCAN_ERROR = 
+		"SCAN_ERROR";
 	
 	private Object arg1;
 	private Object arg2;
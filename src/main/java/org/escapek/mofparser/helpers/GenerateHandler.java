@@ -18,29 +18,121 @@
  */
 package org.escapek.mofparser.helpers;
 
-import org.escapek.mofparser.MOFParser;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.MOFWriter;
+import org.escapek.mofparser.Production;
 import org.escapek.mofparser.decl.ClassDecl;
 import org.escapek.mofparser.decl.InstDecl;
 import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
 
-public class GenerateHandler extends DefaultHandler {
-	private MOFParser parser = new MOFParser();
+/**
+ * Content handler writing parsed declarations back in MOF syntax.
+ * Declarations are written as they are received and are not kept, so the handler can write 
+ * documents of any size. Output is flushed at the end of the document. Write errors are reported
+ * as {@link MOFParserException}s wrapping the {@link IOException}.
+ * @author nico
+ *
+ */
+public class GenerateHandler implements IContentHandler {
+	private MOFWriter writer;
 	
-	@Override
-	public void classDeclaration(ClassDecl decl) {
-		super.classDeclaration(decl);
-		System.out.println(parser.generateMOF(decl));
+	/**
+	 * Create a handler writing to the standard output.
+	 */
+	public GenerateHandler() {
+		this(new OutputStreamWriter(System.out));
+	}
+
+	/**
+	 * Create a handler writing to the given output.
+	 * @param out output receiving generated MOF
+	 */
+	public GenerateHandler(Writer out) {
+		writer = new MOFWriter(out);
+	}
+
+	public void classDeclaration(ClassDecl decl) throws MOFParserException {
+		try {
+			writer.write(decl);
+		}
+		catch (IOException e) {
+			throw new MOFParserException(e);
+		}
+	}
+
+	public void compilerDirective(PragmaDecl decl) throws MOFParserException {
+		try {
+			writer.write(decl);
+		}
+		catch (IOException e) {
+			throw new MOFParserException(e);
+		}
+	}
+
+	public void instanceDeclaration(InstDecl decl) throws MOFParserException {
+		try {
+			writer.write(decl);
+		}
+		catch (IOException e) {
+			throw new MOFParserException(e);
+		}
+	}
+
+	public void qualifierDeclaration(QualifierDecl decl) {
+	}
+
+	public void startDocument() {
+	}
+
+	public void endDocument() throws MOFParserException {
+		try {
+			writer.flush();
+		}
+		catch (IOException e) {
+			throw new MOFParserException(e);
+		}
+	}
+
+	public void error(MOFParserException ex) throws MOFParserException {
+		throw ex;
+	}
+
+	public void include(String name) {
+	}
+
+	public void startProduction(Production productionType) {
+	}
+
+	public void endProduction() {
+	}
+
+	public void startCompilerDirective() {
+	}
+
+	public void endCompilerDirective() {
+	}
+
+	public void startQualifierDeclaration() {
+	}
+
+	public void endQualifierDeclaration() {
+	}
+
+	public void startClassDeclaration() {
+	}
+
+	public void endClassDeclaration() {
 	}
 
-	@Override
-	public void compilerDirective(PragmaDecl decl) {
-		super.compilerDirective(decl);
-		System.out.println(parser.generateMOF(decl));
+	public void startInstanceDeclaration() {
 	}
 
-	@Override
-	public void instanceDeclaration(InstDecl decl) {
-		super.instanceDeclaration(decl);
-		System.out.println(parser.generateMOF(decl));
+	public void endInstanceDeclaration() {
 	}
 }
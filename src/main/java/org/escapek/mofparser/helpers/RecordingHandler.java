@@ -0,0 +1,195 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.Production;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * MOF event handler implementation which records every event it receives, including errors, 
+ * so they can be sent later to another handler.
+ * @author nico
+ *
+ */
+public class RecordingHandler implements IContentHandler {
+	private enum Event {
+		START_DOCUMENT, END_DOCUMENT, ERROR, START_PRODUCTION, END_PRODUCTION,
+		START_COMPILER_DIRECTIVE, COMPILER_DIRECTIVE, END_COMPILER_DIRECTIVE, INCLUDE,
+		START_QUALIFIER_DECLARATION, QUALIFIER_DECLARATION, END_QUALIFIER_DECLARATION,
+		START_CLASS_DECLARATION, CLASS_DECLARATION, END_CLASS_DECLARATION,
+		START_INSTANCE_DECLARATION, INSTANCE_DECLARATION, END_INSTANCE_DECLARATION
+	}
+
+	private List<Event> events;
+	private List<Object> args;
+	private boolean recordDocument;
+
+	/**
+	 * Create a handler which records every event.
+	 */
+	public RecordingHandler() {
+		this(true);
+	}
+
+	/**
+	 * Create a handler.
+	 * @param recordDocument false to ignore <code>startDocument</code> and <code>endDocument</code> events,
+	 * when recording a part of a document.
+	 */
+	public RecordingHandler(boolean recordDocument) {
+		this.recordDocument = recordDocument;
+		events = new ArrayList<Event>();
+		args = new ArrayList<Object>();
+	}
+
+	private void record(Event event, Object arg) {
+		events.add(event);
+		args.add(arg);
+	}
+
+	/**
+	 * Send recorded events to a handler, in the order they were received.
+	 * @param handler handler receiving the events
+	 * @throws MOFParserException if thrown by the handler. Remaining events are not sent.
+	 */
+	public void replay(IContentHandler handler) throws MOFParserException {
+		for(int i = 0; i < events.size(); i++) {
+			Object arg = args.get(i);
+			switch(events.get(i)) {
+			case START_DOCUMENT: handler.startDocument(); break;
+			case END_DOCUMENT: handler.endDocument(); break;
+			case ERROR: handler.error((MOFParserException)arg); break;
+			case START_PRODUCTION: handler.startProduction((Production)arg); break;
+			case END_PRODUCTION: handler.endProduction(); break;
+			case START_COMPILER_DIRECTIVE: handler.startCompilerDirective(); break;
+			case COMPILER_DIRECTIVE: handler.compilerDirective((PragmaDecl)arg); break;
+			case END_COMPILER_DIRECTIVE: handler.endCompilerDirective(); break;
+			case INCLUDE: handler.include((String)arg); break;
+			case START_QUALIFIER_DECLARATION: handler.startQualifierDeclaration(); break;
+			case QUALIFIER_DECLARATION: handler.qualifierDeclaration((QualifierDecl)arg); break;
+			case END_QUALIFIER_DECLARATION: handler.endQualifierDeclaration(); break;
+			case START_CLASS_DECLARATION: handler.startClassDeclaration(); break;
+			case CLASS_DECLARATION: handler.classDeclaration((ClassDecl)arg); break;
+			case END_CLASS_DECLARATION: handler.endClassDeclaration(); break;
+			case START_INSTANCE_DECLARATION: handler.startInstanceDeclaration(); break;
+			case INSTANCE_DECLARATION: handler.instanceDeclaration((InstDecl)arg); break;
+			case END_INSTANCE_DECLARATION: handler.endInstanceDeclaration(); break;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of recorded events.
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/**
+	 * Remove all recorded events.
+	 */
+	public void clear() {
+		events.clear();
+		args.clear();
+	}
+
+	public void startDocument() {
+		if(recordDocument) {
+			record(Event.START_DOCUMENT, null);
+		}
+	}
+
+	public void endDocument() {
+		if(recordDocument) {
+			record(Event.END_DOCUMENT, null);
+		}
+	}
+
+	public void error(MOFParserException ex) {
+		record(Event.ERROR, ex);
+	}
+
+	public void startProduction(Production productionType) {
+		record(Event.START_PRODUCTION, productionType);
+	}
+
+	public void endProduction() {
+		record(Event.END_PRODUCTION, null);
+	}
+
+	public void startCompilerDirective() {
+		record(Event.START_COMPILER_DIRECTIVE, null);
+	}
+
+	public void compilerDirective(PragmaDecl decl) {
+		record(Event.COMPILER_DIRECTIVE, decl);
+	}
+
+	public void endCompilerDirective() {
+		record(Event.END_COMPILER_DIRECTIVE, null);
+	}
+
+	public void include(String name) {
+		record(Event.INCLUDE, name);
+	}
+
+	public void startQualifierDeclaration() {
+		record(Event.START_QUALIFIER_DECLARATION, null);
+	}
+
+	public void qualifierDeclaration(QualifierDecl decl) {
+		record(Event.QUALIFIER_DECLARATION, decl);
+	}
+
+	public void endQualifierDeclaration() {
+		record(Event.END_QUALIFIER_DECLARATION, null);
+	}
+
+	public void startClassDeclaration() {
+		record(Event.START_CLASS_DECLARATION, null);
+	}
+
+	public void classDeclaration(ClassDecl decl) {
+		record(Event.CLASS_DECLARATION, decl);
+	}
+
+	public void endClassDeclaration() {
+		record(Event.END_CLASS_DECLARATION, null);
+	}
+
+	public void startInstanceDeclaration() {
+		record(Event.START_INSTANCE_DECLARATION, null);
+	}
+
+	public void instanceDeclaration(InstDecl decl) {
+		record(Event.INSTANCE_DECLARATION, decl);
+	}
+
+	public void endInstanceDeclaration() {
+		record(Event.END_INSTANCE_DECLARATION, null);
+	}
+}
@@ -0,0 +1,393 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.helpers;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.FoldedName;
+
+/**
+ * Content handler indexing parsed classes by name and by inheritance.
+ * Class names are case insensitive. When a class is declared more than once, the last declaration
+ * is indexed. A class whose parent class isn't declared is a root class.
+ * <p>
+ * The inheritance index is built on the first query following a class declaration. Classes are 
+ * numbered in depth-first order, so the subclasses of a class are numbered right after it: subtype
+ * checks compare two numbers, and subclasses are returned without walking the hierarchy.
+ * Ancestors of each class are stored in an array.
+ * <p>
+ * Queries can be run from several threads once parsing is done.
+ * @author nico
+ *
+ */
+public class SchemaRepository extends DefaultHandler {
+	private final Map<Key, ClassDecl> declarations = new HashMap<Key, ClassDecl>();
+	private volatile Index index;
+
+	@Override
+	public synchronized void classDeclaration(ClassDecl decl) {
+		super.classDeclaration(decl);
+		if(decl.name != null) {
+			declarations.put(new Key(decl.name), decl);
+			index = null;
+		}
+	}
+
+	@Override
+	public synchronized void setClasses(List<ClassDecl> classes) {
+		super.setClasses(classes);
+		declarations.clear();
+		for(ClassDecl decl : classes) {
+			if(decl.name != null) {
+				declarations.put(new Key(decl.name), decl);
+			}
+		}
+		index = null;
+	}
+
+	/**
+	 * Get the number of indexed classes.
+	 */
+	public int size() {
+		return index().classes.length;
+	}
+
+	/**
+	 * Get a class declaration.
+	 * @param name class name
+	 * @return the class declaration, or null if there is no class with this name
+	 */
+	public ClassDecl getClass(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		return node < 0 ? null : idx.classes[node];
+	}
+
+	/**
+	 * Get the parent of a class.
+	 * @param name class name
+	 * @return the parent class declaration, or null if the class is unknown or is a root class
+	 */
+	public ClassDecl getParent(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		if(node < 0 || idx.parent[node] < 0) {
+			return null;
+		}
+		return idx.classes[idx.parent[node]];
+	}
+
+	/**
+	 * Get the direct subclasses of a class.
+	 * @param name class name
+	 * @return the direct subclasses, empty if the class is unknown
+	 */
+	public List<ClassDecl> getChildren(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		if(node < 0) {
+			return Collections.emptyList();
+		}
+		return idx.nodes(idx.children[node]);
+	}
+
+	/**
+	 * Get the subclasses of a class, at any depth, in depth-first order.
+	 * @param name class name
+	 * @return the subclasses, empty if the class is unknown
+	 */
+	public List<ClassDecl> getSubclasses(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		if(node < 0) {
+			return Collections.emptyList();
+		}
+		return idx.range(idx.pre[node] + 1, idx.last[node] + 1);
+	}
+
+	/**
+	 * Get the ancestors of a class, starting with its parent and ending with its root class.
+	 * @param name class name
+	 * @return the ancestors, empty if the class is unknown or is a root class
+	 */
+	public List<ClassDecl> getAncestors(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		if(node < 0) {
+			return Collections.emptyList();
+		}
+		return idx.nodes(idx.ancestors[node]);
+	}
+
+	/**
+	 * Get the root classes, in declaration order.
+	 */
+	public List<ClassDecl> getRootClasses() {
+		Index idx = index();
+		return idx.nodes(idx.roots);
+	}
+
+	/**
+	 * Get the depth of a class in the inheritance hierarchy.
+	 * @param name class name
+	 * @return 0 for a root class, -1 if the class is unknown
+	 */
+	public int getDepth(String name) {
+		Index idx = index();
+		int node = idx.node(name);
+		return node < 0 ? -1 : idx.ancestors[node].length;
+	}
+
+	/**
+	 * Tell if a class is a given class or one of its subclasses.
+	 * @param name class name
+	 * @param ancestorName name of the expected ancestor
+	 * @return true if both classes are known and <code>name</code> is <code>ancestorName</code>
+	 * or inherits from it
+	 */
+	public boolean isSubtypeOf(String name, String ancestorName) {
+		Index idx = index();
+		int node = idx.node(name);
+		int ancestor = idx.node(ancestorName);
+		if(node < 0 || ancestor < 0) {
+			return false;
+		}
+		return idx.pre[ancestor] <= idx.pre[node] && idx.pre[node] <= idx.last[ancestor];
+	}
+
+	private Index index() {
+		Index idx = index;
+		if(idx == null) {
+			synchronized (this) {
+				idx = index;
+				if(idx == null) {
+					idx = new Index(getClasses(), declarations);
+					index = idx;
+				}
+			}
+		}
+		return idx;
+	}
+
+	/**
+	 * Case insensitive class name.
+	 */
+	private static final class Key {
+		private final String name;
+		private final int hash;
+
+		Key(String name) {
+			this.name = name;
+			this.hash = FoldedName.foldedHash(name);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && ((Key)obj).name.equalsIgnoreCase(name);
+		}
+	}
+
+	/**
+	 * Immutable inheritance index. Classes are identified by their position in <code>classes</code>.
+	 */
+	private static final class Index {
+		private final Map<Key, Integer> nodes;
+		private final ClassDecl[] classes;
+		private final int[] parent;
+		private final int[][] children;
+		private final int[][] ancestors;
+		private final int[] roots;
+		//Depth-first numbering: pre[n] is the number of n, last[n] the greatest number of its subclasses
+		private final int[] pre;
+		private final int[] last;
+		//Nodes by number
+		private final int[] order;
+
+		Index(List<ClassDecl> declared, Map<Key, ClassDecl> declarations) {
+			//Number classes in declaration order, keeping the last declaration of each name
+			nodes = new HashMap<Key, Integer>();
+			List<ClassDecl> list = new ArrayList<ClassDecl>(declarations.size());
+			for(ClassDecl decl : declared) {
+				if(decl.name == null) {
+					continue;
+				}
+				Key key = new Key(decl.name);
+				if(declarations.get(key) == decl && !nodes.containsKey(key)) {
+					nodes.put(key, list.size());
+					list.add(decl);
+				}
+			}
+			classes = list.toArray(new ClassDecl[list.size()]);
+			int count = classes.length;
+
+			parent = new int[count];
+			int[] childCount = new int[count];
+			for(int i = 0; i < count; i++) {
+				Integer p = classes[i].parentClass == null ? null : nodes.get(new Key(classes[i].parentClass));
+				parent[i] = p == null ? -1 : p;
+				if(parent[i] >= 0) {
+					childCount[parent[i]]++;
+				}
+			}
+			children = new int[count][];
+			for(int i = 0; i < count; i++) {
+				children[i] = new int[childCount[i]];
+				childCount[i] = 0;
+			}
+			for(int i = 0; i < count; i++) {
+				if(parent[i] >= 0) {
+					children[parent[i]][childCount[parent[i]]++] = i;
+				}
+			}
+
+			pre = new int[count];
+			last = new int[count];
+			order = new int[count];
+			ancestors = new int[count][];
+			List<Integer> rootList = new ArrayList<Integer>();
+			int number = 0;
+			for(int i = 0; i < count; i++) {
+				if(parent[i] < 0) {
+					rootList.add(i);
+					number = number(i, number);
+				}
+			}
+			//Classes left are part of an inheritance cycle: cut it where it is first declared
+			for(int i = 0; i < count; i++) {
+				if(ancestors[i] == null) {
+					removeChild(parent[i], i);
+					parent[i] = -1;
+					rootList.add(i);
+					number = number(i, number);
+				}
+			}
+			roots = new int[rootList.size()];
+			for(int i = 0; i < roots.length; i++) {
+				roots[i] = rootList.get(i);
+			}
+		}
+
+		private void removeChild(int node, int child) {
+			int[] newChildren = new int[children[node].length - 1];
+			int j = 0;
+			for(int c : children[node]) {
+				if(c != child) {
+					newChildren[j++] = c;
+				}
+			}
+			children[node] = newChildren;
+		}
+
+		/**
+		 * Number a class and its subclasses, without recursion.
+		 * @return the next free number
+		 */
+		private int number(int root, int number) {
+			int[] stack = new int[16];
+			int[] next = new int[16];
+			int top = 0;
+			stack[0] = root;
+			next[0] = 0;
+			ancestors[root] = new int[0];
+			pre[root] = number;
+			order[number++] = root;
+			while(top >= 0) {
+				int node = stack[top];
+				if(next[top] == children[node].length) {
+					last[node] = number - 1;
+					top--;
+					continue;
+				}
+				int child = children[node][next[top]++];
+				if(ancestors[child] != null) {
+					//Already numbered, as the start of a cycle
+					continue;
+				}
+				int[] nodeAncestors = ancestors[node];
+				int[] childAncestors = new int[nodeAncestors.length + 1];
+				childAncestors[0] = node;
+				System.arraycopy(nodeAncestors, 0, childAncestors, 1, nodeAncestors.length);
+				ancestors[child] = childAncestors;
+				pre[child] = number;
+				order[number++] = child;
+				if(++top == stack.length) {
+					int[] newStack = new int[stack.length * 2];
+					System.arraycopy(stack, 0, newStack, 0, stack.length);
+					stack = newStack;
+					int[] newNext = new int[next.length * 2];
+					System.arraycopy(next, 0, newNext, 0, next.length);
+					next = newNext;
+				}
+				stack[top] = child;
+				next[top] = 0;
+			}
+			return number;
+		}
+
+		int node(String name) {
+			if(name == null) {
+				return -1;
+			}
+			Integer node = nodes.get(new Key(name));
+			return node == null ? -1 : node;
+		}
+
+		List<ClassDecl> nodes(final int[] indexes) {
+			return new AbstractList<ClassDecl>() {
+				@Override
+				public ClassDecl get(int i) {
+					return classes[indexes[i]];
+				}
+
+				@Override
+				public int size() {
+					return indexes.length;
+				}
+			};
+		}
+
+		List<ClassDecl> range(final int from, final int to) {
+			return new AbstractList<ClassDecl>() {
+				@Override
+				public ClassDecl get(int i) {
+					if(i < 0 || i >= to - from) {
+						throw new IndexOutOfBoundsException(Integer.toString(i));
+					}
+					return classes[order[from + i]];
+				}
+
+				@Override
+				public int size() {
+					return to - from;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.escapek.mofparser.IncludeResolver;
+import org.escapek.mofparser.IncludeSource;
+
+/**
+ * Include resolver looking for included files in several locations. An included file is searched:
+ * <ul>
+ * <li>relatively to the including file, if its location is known</li>
+ * <li>in the search path directories, in the order they were added</li>
+ * <li>in the class path, if a class loader has been given</li>
+ * </ul>
+ * Backslashes in included file names are read as path separators.
+ * @author nico
+ *
+ */
+public class SearchPathIncludeResolver implements IncludeResolver {
+	private List<File> directories;
+	private ClassLoader classLoader;
+	private Charset charset;
+
+	public SearchPathIncludeResolver() {
+		directories = new ArrayList<File>();
+		charset = Charset.defaultCharset();
+	}
+
+	/**
+	 * Add a directory to the search path.
+	 * @param directory directory to search included files in
+	 */
+	public void addDirectory(File directory) {
+		directories.add(directory);
+	}
+
+	public List<File> getDirectories() {
+		return directories;
+	}
+
+	/**
+	 * Set the class loader used to look for included files in the class path.
+	 * @param classLoader class loader, or null to disable class path lookup
+	 */
+	public void setClassLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	/**
+	 * Set the charset used to decode included files. Default is the platform default charset.
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public IncludeSource resolve(String name, IncludeSource parent) throws IOException {
+		String path = name.replace("\\\\", "/").replace('\\', '/');
+		//Relative to the including file
+		if(parent != null) {
+			IncludeSource source = toSource(new URL(parent.getURL(), path));
+			if(source != null) {
+				return source;
+			}
+		}
+		File file = new File(path);
+		if(file.isAbsolute()) {
+			return file.isFile() ? IncludeSource.forFile(file, charset) : null;
+		}
+		for(File directory : directories) {
+			file = new File(directory, path);
+			if(file.isFile()) {
+				return IncludeSource.forFile(file, charset);
+			}
+		}
+		if(classLoader != null) {
+			URL url = classLoader.getResource(path);
+			if(url != null) {
+				return toSource(url);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Build a source for an URL, if it points to an existing document.
+	 */
+	private IncludeSource toSource(URL url) throws IOException {
+		if("file".equals(url.getProtocol())) {
+			File file;
+			try {
+				file = new File(url.toURI());
+			}
+			catch (URISyntaxException e) {
+				return null;
+			}
+			catch (IllegalArgumentException e) {
+				return null;
+			}
+			return file.isFile() ? IncludeSource.forFile(file, charset) : null;
+		}
+		try {
+			InputStream in = url.openStream();
+			in.close();
+		}
+		catch (IOException e) {
+			return null;
+		}
+		return IncludeSource.forURL(url, charset);
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+/**
+ * Case folding helpers used by case insensitive streams.
+ * ASCII characters, which make almost all of MOF content, are folded through a lookup table.
+ * Other characters fall back on {@link Character#toLowerCase(char)}.
+ * @author nico
+ *
+ */
+public final class CaseFolding {
+	private static final char[] ASCII_FOLD = new char[128];
+
+	static {
+		for(char c = 0; c < ASCII_FOLD.length; c++) {
+			ASCII_FOLD[c] = (c >= 'A' && c <= 'Z') ? (char)(c + ('a' - 'A')) : c;
+		}
+	}
+
+	private CaseFolding() {
+	}
+
+	/**
+	 * Return the lower case value of a character.
+	 * @param c character to fold
+	 * @return lower case character
+	 */
+	public static char toLowerCase(char c) {
+		if(c < 128) {
+			return ASCII_FOLD[c];
+		}
+		return Character.toLowerCase(c);
+	}
+}
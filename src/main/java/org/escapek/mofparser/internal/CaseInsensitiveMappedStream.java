@@ -0,0 +1,134 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+
+/**
+ * ANTLR Stream which provides case insensitivity over a memory-mapped file.
+ * The file is mapped by regions and decoded incrementally into the stream window, see
+ * {@link CaseInsensitiveWindowedStream}. For ASCII compatible charsets, ASCII bytes are copied
+ * directly without going through the charset decoder.
+ * @author nico
+ *
+ */
+public class CaseInsensitiveMappedStream extends CaseInsensitiveWindowedStream {
+	private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+	private FileChannel channel;
+	private long fileSize;
+	private long regionStart;
+	private ByteBuffer region;
+	private CharsetDecoder decoder;
+	private boolean asciiFastPath;
+	private boolean flushed;
+
+	public CaseInsensitiveMappedStream(FileChannel channel, Charset charset) throws IOException {
+		this(channel, charset, DEFAULT_WINDOW_SIZE);
+	}
+
+	public CaseInsensitiveMappedStream(FileChannel channel, Charset charset, int windowSize) throws IOException {
+		super(windowSize);
+		this.channel = channel;
+		this.fileSize = channel.size();
+		this.decoder = charset.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		String name = charset.name();
+		asciiFastPath = name.equals("US-ASCII") || name.equals("UTF-8") || name.equals("ISO-8859-1");
+		region = ByteBuffer.allocate(0);
+		map(0);
+	}
+
+	/**
+	 * Map the file region starting at the given position.
+	 * @return false if position is at the end of the file.
+	 */
+	private boolean map(long position) throws IOException {
+		if(position >= fileSize) {
+			return false;
+		}
+		long size = Math.min(REGION_SIZE, fileSize - position);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		regionStart = position;
+		return true;
+	}
+
+	/**
+	 * Copy ASCII bytes from the current region until a non-ASCII byte is found.
+	 */
+	private int readAscii(char[] buf, int off, int len) {
+		int pos = region.position();
+		int limit = Math.min(region.limit(), pos + len);
+		int count = 0;
+		while(pos < limit) {
+			byte b = region.get(pos);
+			if(b < 0) {
+				break;
+			}
+			buf[off + count] = (char)b;
+			count++;
+			pos++;
+		}
+		region.position(pos);
+		return count;
+	}
+
+	@Override
+	protected int read(char[] buf, int off, int len) throws IOException {
+		while(true) {
+			if(asciiFastPath) {
+				int count = readAscii(buf, off, len);
+				if(count > 0) {
+					return count;
+				}
+			}
+			boolean lastRegion = regionStart + region.limit() >= fileSize;
+			CharBuffer out = CharBuffer.wrap(buf, off, len);
+			CoderResult result = decoder.decode(region, out, lastRegion);
+			if(result.isError()) {
+				result.throwException();
+			}
+			int count = out.position() - off;
+			if(count > 0) {
+				return count;
+			}
+			if(lastRegion) {
+				if(!flushed) {
+					flushed = true;
+					decoder.flush(out);
+					count = out.position() - off;
+					if(count > 0) {
+						return count;
+					}
+				}
+				return -1;
+			}
+			//Remaining bytes are an incomplete sequence: map next region starting with them
+			map(regionStart + region.position());
+		}
+	}
+}
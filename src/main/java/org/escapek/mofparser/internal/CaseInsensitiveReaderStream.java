@@ -0,0 +1,46 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * ANTLR Stream which provides case insensitivity over a {@link Reader}.
+ * Content is read by fixed-size windows, see {@link CaseInsensitiveWindowedStream}.
+ * @author nico
+ *
+ */
+public class CaseInsensitiveReaderStream extends CaseInsensitiveWindowedStream {
+	private Reader reader;
+
+	public CaseInsensitiveReaderStream(Reader reader) {
+		this(reader, DEFAULT_WINDOW_SIZE);
+	}
+
+	public CaseInsensitiveReaderStream(Reader reader, int windowSize) {
+		super(windowSize);
+		this.reader = reader;
+	}
+
+	@Override
+	protected int read(char[] buf, int off, int len) throws IOException {
+		return reader.read(buf, off, len);
+	}
+}
@@ -47,7 +47,7 @@ public class CaseInsensitiveStringStream extends ANTLRStringStream {
             return (int) CharStream.EOF;
         }
 
-        return Character.toLowerCase(data[(p + i) - 1]);
+        return CaseFolding.toLowerCase(data[(p + i) - 1]);
 	}
 
 }
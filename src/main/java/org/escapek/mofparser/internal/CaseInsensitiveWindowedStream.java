@@ -0,0 +1,258 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.CharStream;
+
+/**
+ * ANTLR Stream which provides case insensitivity while reading its content by fixed-size windows.
+ * Unlike {@link CaseInsensitiveStringStream}, the whole document is never held in memory: characters
+ * located before the last committed index are dropped when the window needs to be refilled, so memory
+ * use depends on the largest token, not on the document size.
+ * Subclasses provide content through the {@link #read(char[], int, int)} method.
+ * @author nico
+ *
+ */
+public abstract class CaseInsensitiveWindowedStream implements CharStream {
+	/**
+	 * Default window size, in characters.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 8192;
+
+	private char[] data;
+	//Absolute index of data[0] in the stream
+	private int offset;
+	//Number of valid characters in data
+	private int n;
+	//Absolute index before which characters may be dropped
+	private int committed;
+	private boolean eof;
+	private IOException ioException;
+
+	private int p;
+	private int line = 1;
+	private int charPositionInLine;
+	private int markDepth;
+	private int lastMarker;
+	private List<MarkState> markers;
+
+	private static class MarkState {
+		int p;
+		int line;
+		int charPositionInLine;
+	}
+
+	public CaseInsensitiveWindowedStream(int windowSize) {
+		if(windowSize < 2) {
+			throw new IllegalArgumentException("Invalid window size: " + windowSize);
+		}
+		data = new char[windowSize];
+	}
+
+	/**
+	 * Read characters from the underlying source.
+	 * @param buf destination buffer
+	 * @param off offset at which to start storing characters
+	 * @param len maximum number of characters to read
+	 * @return number of characters read, or -1 if the end of the source has been reached
+	 * @throws IOException if an error occurs while reading the source
+	 */
+	protected abstract int read(char[] buf, int off, int len) throws IOException;
+
+	/**
+	 * Mark the current position as the beginning of the content still needed. Characters located
+	 * before this position (and before any active marker) can be dropped from the window.
+	 * Lexers call this method before matching a new token.
+	 */
+	public void commit() {
+		int index = p;
+		for(int m = 1; m <= markDepth; m++) {
+			index = Math.min(index, markers.get(m).p);
+		}
+		committed = index;
+	}
+
+	/**
+	 * Return the exception which stopped the stream reading, if any. As ANTLR streams can't throw
+	 * checked exceptions, a read error is reported as an end of stream and stored here.
+	 * @return the read exception, or null if none occured.
+	 */
+	public IOException getIOException() {
+		return ioException;
+	}
+
+	/**
+	 * Ensure the character at the given absolute index is loaded in the window.
+	 * @return false if index is beyond the end of the stream.
+	 */
+	private boolean fill(int index) {
+		while(index >= offset + n) {
+			if(eof) {
+				return false;
+			}
+			//Keep room for at least a surrogate pair
+			if(data.length - n < 2) {
+				int discard = committed - offset;
+				char[] target = data;
+				if(discard < data.length / 2) {
+					//Current token doesn't leave enough free space: grow the window
+					target = new char[data.length * 2];
+				}
+				System.arraycopy(data, discard, target, 0, n - discard);
+				data = target;
+				offset += discard;
+				n -= discard;
+			}
+			try {
+				int numRead = read(data, n, data.length - n);
+				if(numRead < 0) {
+					eof = true;
+				}
+				else {
+					n += numRead;
+				}
+			}
+			catch (IOException e) {
+				ioException = e;
+				eof = true;
+			}
+		}
+		return true;
+	}
+
+	public int LA(int i) {
+		if (i == 0) {
+			return 0;
+		}
+		if (i < 0) {
+			i++;
+		}
+		int index = (p + i) - 1;
+		if(index < offset || !fill(index)) {
+			return (int) CharStream.EOF;
+		}
+		return CaseFolding.toLowerCase(data[index - offset]);
+	}
+
+	public int LT(int i) {
+		return LA(i);
+	}
+
+	public void consume() {
+		if(fill(p)) {
+			charPositionInLine++;
+			if(data[p - offset] == '\n') {
+				line++;
+				charPositionInLine = 0;
+			}
+			p++;
+		}
+	}
+
+	public int index() {
+		return p;
+	}
+
+	/**
+	 * Return the number of characters read so far. The total size of the stream is not known
+	 * until its end has been reached.
+	 */
+	public int size() {
+		return offset + n;
+	}
+
+	public int mark() {
+		if(markers == null) {
+			markers = new ArrayList<MarkState>();
+			markers.add(null);
+		}
+		markDepth++;
+		MarkState state;
+		if(markDepth >= markers.size()) {
+			state = new MarkState();
+			markers.add(state);
+		}
+		else {
+			state = markers.get(markDepth);
+		}
+		state.p = p;
+		state.line = line;
+		state.charPositionInLine = charPositionInLine;
+		lastMarker = markDepth;
+		return markDepth;
+	}
+
+	public void rewind(int marker) {
+		MarkState state = markers.get(marker);
+		seek(state.p);
+		line = state.line;
+		charPositionInLine = state.charPositionInLine;
+		release(marker);
+	}
+
+	public void rewind() {
+		rewind(lastMarker);
+	}
+
+	public void release(int marker) {
+		markDepth = marker - 1;
+	}
+
+	public void seek(int index) {
+		if(index <= p) {
+			if(index < offset) {
+				throw new IllegalStateException("Position " + index + " has already been dropped from the stream window");
+			}
+			p = index;
+			return;
+		}
+		while(p < index && fill(p)) {
+			consume();
+		}
+	}
+
+	public String substring(int start, int stop) {
+		if(start < offset) {
+			throw new IllegalStateException("Position " + start + " has already been dropped from the stream window");
+		}
+		fill(stop);
+		int end = Math.min(stop + 1, offset + n);
+		return new String(data, start - offset, end - start);
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	public int getCharPositionInLine() {
+		return charPositionInLine;
+	}
+
+	public void setCharPositionInLine(int pos) {
+		charPositionInLine = pos;
+	}
+}
@@ -0,0 +1,401 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.Token;
+import org.escapek.mofparser.CompilerDirective;
+import org.escapek.mofparser.DataType;
+import org.escapek.mofparser.FlavorType;
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.Production;
+import org.escapek.mofparser.ScopeType;
+import org.escapek.mofparser.SymbolTable;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.FoldedName;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.decl.Values;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * Builds declarations from parsed tokens and sends them to a content handler.
+ * This class is used by the direct parsing mode. Handler events are sent in the same order
+ * as when walking the AST.
+ * Static methods are shared with the AST walker.
+ * @author nico
+ *
+ */
+public class DeclBuilder {
+	private static final DataType[] DATA_TYPES = new DataType[cim23Parser.tokenNames.length];
+	private static final FlavorType[] FLAVOR_TYPES = new FlavorType[cim23Parser.tokenNames.length];
+	private static final ScopeType[] SCOPE_TYPES = new ScopeType[cim23Parser.tokenNames.length];
+
+	static {
+		DATA_TYPES[cim23Parser.DT_UINT8] = DataType.UINT8;
+		DATA_TYPES[cim23Parser.DT_SINT8] = DataType.SINT8;
+		DATA_TYPES[cim23Parser.DT_UINT16] = DataType.UINT16;
+		DATA_TYPES[cim23Parser.DT_SINT16] = DataType.SINT16;
+		DATA_TYPES[cim23Parser.DT_UINT32] = DataType.UINT32;
+		DATA_TYPES[cim23Parser.DT_SINT32] = DataType.SINT32;
+		DATA_TYPES[cim23Parser.DT_UINT64] = DataType.UINT64;
+		DATA_TYPES[cim23Parser.DT_SINT64] = DataType.SINT64;
+		DATA_TYPES[cim23Parser.DT_REAL32] = DataType.REAL32;
+		DATA_TYPES[cim23Parser.DT_REAL64] = DataType.REAL64;
+		DATA_TYPES[cim23Parser.DT_CHAR16] = DataType.CHAR16;
+		DATA_TYPES[cim23Parser.DT_STR] = DataType.STRING;
+		DATA_TYPES[cim23Parser.DT_BOOL] = DataType.BOOLEAN;
+		DATA_TYPES[cim23Parser.DT_DATETIME] = DataType.DATETIME;
+		DATA_TYPES[cim23Parser.Reference] = DataType.REFERENCE;
+
+		FLAVOR_TYPES[cim23Parser.ENABLEOVERRIDE] = FlavorType.ENABLEOVERRIDE;
+		FLAVOR_TYPES[cim23Parser.DISABLEOVERRIDE] = FlavorType.DISABLEOVERRIDE;
+		FLAVOR_TYPES[cim23Parser.RESTRICTED] = FlavorType.RESTRICTED;
+		FLAVOR_TYPES[cim23Parser.TOSUBCLASS] = FlavorType.TOSUBCLASS;
+		FLAVOR_TYPES[cim23Parser.TRANSLATABLE] = FlavorType.TRANSLATE;
+
+		SCOPE_TYPES[cim23Parser.SCHEMA] = ScopeType.SCHEMA;
+		SCOPE_TYPES[cim23Parser.CLASS] = ScopeType.CLASS;
+		SCOPE_TYPES[cim23Parser.ASSOCIATION] = ScopeType.ASSOCIATION;
+		SCOPE_TYPES[cim23Parser.INDICATION] = ScopeType.INDICATION;
+		SCOPE_TYPES[cim23Parser.PROPERTY] = ScopeType.PROPERTY;
+		SCOPE_TYPES[cim23Parser.REFERENCE] = ScopeType.REFERENCE;
+		SCOPE_TYPES[cim23Parser.METHOD] = ScopeType.METHOD;
+		SCOPE_TYPES[cim23Parser.PARAMETER] = ScopeType.PARAMETER;
+		SCOPE_TYPES[cim23Parser.ANY] = ScopeType.ANY;
+	}
+
+	private IContentHandler handler;
+	private SymbolTable symbols;
+
+	public DeclBuilder(IContentHandler handler) {
+		this(handler, null);
+	}
+
+	/**
+	 * @param handler handler receiving declarations
+	 * @param symbols table used to share identifier instances, or null
+	 */
+	public DeclBuilder(IContentHandler handler, SymbolTable symbols) {
+		this.handler = handler;
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Get the text of an identifier token, shared through the symbol table.
+	 */
+	public String symbol(Token identifier) {
+		if(symbols == null) {
+			return identifier.getText();
+		}
+		return symbols.intern(identifier.getText());
+	}
+
+	/**
+	 * Get the text of an identifier token with its folded hash, shared through the symbol table.
+	 */
+	public FoldedName foldedSymbol(Token identifier) {
+		if(symbols == null) {
+			return new FoldedName(identifier.getText());
+		}
+		return symbols.symbol(identifier.getText());
+	}
+
+	/**
+	 * Get the compiler directive with the given name.
+	 * @return the directive, or null if the name isn't a supported directive
+	 */
+	public static CompilerDirective getCompilerDirective(String name) {
+		for(CompilerDirective supportedDirectives : CompilerDirective.values()) {
+			if(name.equalsIgnoreCase(supportedDirectives.toString())) {
+				return supportedDirectives;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the flavor type with the given name.
+	 * @return the flavor, or null if the name isn't a supported flavor
+	 */
+	public static FlavorType getFlavorType(String name) {
+		for(FlavorType type : FlavorType.values()) {
+			if(name.equalsIgnoreCase(type.toString())) {
+				return type;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the scope type with the given name.
+	 * @return the scope, or null if the name isn't a supported scope
+	 */
+	public static ScopeType getScopeType(String name) {
+		for(ScopeType type : ScopeType.values()) {
+			if(name.equalsIgnoreCase(type.toString())) {
+				return type;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the data type of a token type. The <code>Reference</code> tree node type maps to
+	 * the reference data type.
+	 * @return the data type, or null if the token isn't a data type
+	 */
+	public static DataType getDataType(int tokenType) {
+		return lookup(DATA_TYPES, tokenType);
+	}
+
+	/**
+	 * Get the flavor of a token type.
+	 * @return the flavor, or null if the token isn't a flavor
+	 */
+	public static FlavorType getFlavorType(int tokenType) {
+		return lookup(FLAVOR_TYPES, tokenType);
+	}
+
+	/**
+	 * Get the scope of a token type.
+	 * @return the scope, or null if the token isn't a scope
+	 */
+	public static ScopeType getScopeType(int tokenType) {
+		return lookup(SCOPE_TYPES, tokenType);
+	}
+
+	private static <T> T lookup(T[] table, int tokenType) {
+		if(tokenType < 0 || tokenType >= table.length) {
+			return null;
+		}
+		return table[tokenType];
+	}
+
+	/**
+	 * Get a type declaration.
+	 * @param symbols symbol table sharing types, or null to build a new type
+	 * @param dataType data type, other than reference
+	 * @param isArray true for an array type
+	 * @param arraySize array size, or -1 for an unbounded array
+	 * @see SymbolTable#type(DataType, boolean, int)
+	 */
+	public static TypeDecl type(SymbolTable symbols, DataType dataType, boolean isArray, int arraySize) {
+		if(symbols != null) {
+			return symbols.type(dataType, isArray, arraySize);
+		}
+		TypeDecl tDecl = new TypeDecl(dataType.toString());
+		tDecl.isArray = isArray;
+		tDecl.arraySize = arraySize;
+		return tDecl;
+	}
+
+	/**
+	 * Get the type of qualifier values as they are written, from their literal tokens.
+	 * <code>null</code> literals are ignored.
+	 * @param symbols symbol table sharing types, or null to build a new type
+	 * @param tokens value tokens
+	 * @param isArray true if values were written as an array
+	 * @return string, char16, sint64 or boolean type, or null if there is no value
+	 * or if literals have different types
+	 */
+	public static TypeDecl literalType(SymbolTable symbols, List<Token> tokens, boolean isArray) {
+		DataType literalType = null;
+		for(Token token : tokens) {
+			DataType type;
+			switch(token.getType()) {
+			case cim23Parser.NULL_VALUE:
+				continue;
+			case cim23Parser.STRING_VALUE:
+				type = DataType.STRING;
+				break;
+			case cim23Parser.CHAR_VALUE:
+				type = DataType.CHAR16;
+				break;
+			case cim23Parser.BINARY_VALUE:
+			case cim23Parser.OCTAL_VALUE:
+			case cim23Parser.DECIMAL_VALUE:
+			case cim23Parser.HEX_VALUE:
+				type = DataType.SINT64;
+				break;
+			case cim23Parser.TRUE:
+			case cim23Parser.FALSE:
+				type = DataType.BOOLEAN;
+				break;
+			default:
+				return null;
+			}
+			if(literalType != null && literalType != type) {
+				return null;
+			}
+			literalType = type;
+		}
+		if(literalType == null) {
+			return null;
+		}
+		return type(symbols, literalType, isArray, isArray ? -1 : 0);
+	}
+
+	/**
+	 * Decode a value token: remove quotes and decode escape sequences.
+	 * @see StringEscapes#decode(String)
+	 */
+	public static String cleanupString(String in) {
+		return StringEscapes.decode(in);
+	}
+
+	/**
+	 * Build a value list from value tokens. <code>null</code> values are skipped.
+	 * @return the value list, or null if there is no value.
+	 */
+	public List<String> values(List<Token> tokens) {
+		List<String> vals = new ArrayList<String>();
+		for(Token token : tokens) {
+			String strValue = cleanupString(token.getText());
+			if(!strValue.equalsIgnoreCase("null")) { 
+				vals.add(strValue);
+			}
+		}
+		if(vals.isEmpty()) {
+			return null;
+		}
+		return vals;
+	}
+
+	/**
+	 * Build a typed value list from value tokens.
+	 * @see Values
+	 */
+	public List<String> values(List<Token> tokens, TypeDecl type) {
+		return Values.of(type, values(tokens));
+	}
+
+	/**
+	 * Build a type declaration from a data type token.
+	 */
+	public TypeDecl type(Token dataType, boolean isArray, int arraySize) {
+		return type(symbols, getDataType(dataType.getType()), isArray, arraySize);
+	}
+
+	/**
+	 * Build a reference type declaration.
+	 */
+	public TypeDecl referenceType(Token refClass) {
+		TypeDecl tDecl = new TypeDecl(DataType.REFERENCE.toString());
+		tDecl.refClass = symbol(refClass);
+		tDecl.isRef = true;
+		return tDecl;
+	}
+
+	public Qualifier qualifier(Token name, List<Token> values, boolean isArray, List<Token> flavors) {
+		Qualifier qual = new Qualifier();
+		qual.setName(foldedSymbol(name));
+		//qualifer type set to null, as we don't know the qualifer declaration
+		qual.type = null;
+		qual.value = values(values);
+		qual.valueType = literalType(symbols, values, isArray);
+		for(Token flavor : flavors) {
+			FlavorType fType = getFlavorType(flavor.getType());
+			if(fType != null) {
+				qual.flavors.add(fType.toString());
+			}
+		}
+		if(symbols == null) {
+			return qual;
+		}
+		return symbols.internQualifier(qual);
+	}
+
+	public void scope(QualifierDecl decl, Token scope) {
+		ScopeType sType = getScopeType(scope.getType());
+		if(sType != null) {
+			decl.scopes.add(sType.toString());
+		}
+	}
+
+	public void flavor(QualifierDecl decl, Token flavor) {
+		FlavorType fType = getFlavorType(flavor.getType());
+		if(fType != null) {
+			decl.flavors.add(fType.toString());
+		}
+	}
+
+	public InstancePropertyDecl instanceProperty(Token name, List<Token> values) {
+		InstancePropertyDecl prop = new InstancePropertyDecl();
+		prop.name = symbol(name);
+		prop.value = values(values);
+		if(prop.value != null) {
+			prop.type.arraySize = prop.value.size(); 
+			if(prop.type.arraySize > 1) {
+				prop.type.isArray = true;
+			}
+		}
+		return prop;
+	}
+
+	public void compilerDirective(Token name, Token parameter) throws MOFParserException {
+		handler.startProduction(Production.compilerDirective);
+		handler.startCompilerDirective();
+		CompilerDirective directive = getCompilerDirective(name.getText());
+		if(directive == null) {
+			handler.error(new MOFParserException(MOFParserException.INVALID_COMPILER_DIRECTIVE,
+					name.getText()));
+		}
+		else {
+			String pragmaParam = cleanupString(parameter.getText());
+			handler.compilerDirective(new PragmaDecl(directive, pragmaParam));
+			//If pragma is 'include', request included content from content handler
+			if(directive.equals(CompilerDirective.include)) {
+				handler.include(pragmaParam);
+			}
+			handler.endCompilerDirective();
+		}
+		handler.endProduction();
+	}
+
+	public void qualifierDeclaration(QualifierDecl decl) throws MOFParserException {
+		handler.startProduction(Production.qualifierDeclaration);
+		handler.startQualifierDeclaration();
+		handler.qualifierDeclaration(decl);
+		handler.endQualifierDeclaration();
+		handler.endProduction();
+	}
+
+	public void classDeclaration(ClassDecl decl) throws MOFParserException {
+		handler.startProduction(Production.classDeclaration);
+		handler.startClassDeclaration();
+		handler.classDeclaration(decl);
+		handler.endClassDeclaration();
+		handler.endProduction();
+	}
+
+	public void instanceDeclaration(InstDecl decl) throws MOFParserException {
+		handler.startProduction(Production.instanceDeclaration);
+		handler.startInstanceDeclaration();
+		handler.instanceDeclaration(decl);
+		handler.endInstanceDeclaration();
+		handler.endProduction();
+	}
+}
@@ -0,0 +1,521 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.MismatchedTokenException;
+import org.antlr.runtime.NoViableAltException;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenStream;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * Recursive descent parser for the CIM v2.3 meta-model which doesn't build an AST.
+ * It accepts the same syntax and reads the same tokens as the cim23 grammar. Declarations are
+ * built while parsing and sent to a {@link DeclBuilder} as soon as each production has been parsed.
+ * Unlike the generated parser, this parser doesn't recover from syntax errors: the first error
+ * stops parsing.
+ * @author nico
+ *
+ */
+public class DirectParser {
+	private static final int LPAREN = MOFScanner.literal("(");
+	private static final int RPAREN = MOFScanner.literal(")");
+	private static final int LBRACE = MOFScanner.literal("{");
+	private static final int RBRACE = MOFScanner.literal("}");
+	private static final int LBRACKET = MOFScanner.literal("[");
+	private static final int RBRACKET = MOFScanner.literal("]");
+	private static final int SEMI = MOFScanner.literal(";");
+	private static final int COLON = MOFScanner.literal(":");
+	private static final int COMMA = MOFScanner.literal(",");
+	private static final int EQUALS = MOFScanner.literal("=");
+	private static final int DOLLAR = MOFScanner.literal("$");
+	private static final int QUOTE = MOFScanner.literal("\"");
+	private static final int PLUS = MOFScanner.literal("+");
+	private static final int MINUS = MOFScanner.literal("-");
+	private static final int DOT = MOFScanner.literal(".");
+	private static final int LOWER_E = MOFScanner.literal("e");
+	private static final int UPPER_E = MOFScanner.literal("E");
+
+	private TokenStream input;
+	private DeclBuilder builder;
+
+	public DirectParser(TokenStream input, DeclBuilder builder) {
+		this.input = input;
+		this.builder = builder;
+	}
+
+	/**
+	 * Parse a whole MOF specification.
+	 * mofSpecification : mofProduction+
+	 */
+	public void mofSpecification() throws RecognitionException, MOFParserException {
+		do {
+			mofProduction();
+		} while(input.LA(1) != Token.EOF);
+	}
+
+	/**
+	 * Parse a single production.
+	 */
+	public void mofProduction() throws RecognitionException, MOFParserException {
+		int la = input.LA(1);
+		if(la == cim23Parser.PRAGMA) {
+			compilerDirective();
+		}
+		else if(la == cim23Parser.QUALIFIER) {
+			qualifierDeclaration();
+		}
+		else {
+			//Both class and instance declarations may start with a qualifier list
+			List<Qualifier> qualifiers = null;
+			if(la == LBRACKET) {
+				qualifiers = qualifierList();
+			}
+			la = input.LA(1);
+			if(la == cim23Parser.CLASS) {
+				classDeclaration(qualifiers);
+			}
+			else if(la == cim23Parser.INSTANCE) {
+				instanceDeclaration();
+			}
+			else {
+				throw new NoViableAltException("mofProduction", 0, 0, input);
+			}
+		}
+	}
+
+	private void compilerDirective() throws RecognitionException, MOFParserException {
+		match(cim23Parser.PRAGMA);
+		Token name = match(cim23Parser.IDENTIFIER);
+		match(LPAREN);
+		Token param = match(cim23Parser.STRING_VALUE);
+		match(RPAREN);
+		builder.compilerDirective(name, param);
+	}
+
+	private void classDeclaration(List<Qualifier> qualifiers) throws RecognitionException, MOFParserException {
+		ClassDecl decl = new ClassDecl();
+		if(qualifiers != null) {
+			decl.qualifiers.addAll(qualifiers);
+		}
+		match(cim23Parser.CLASS);
+		decl.name = builder.symbol(match(cim23Parser.IDENTIFIER));
+		if(input.LA(1) == COLON) {
+			input.consume();
+			decl.parentClass = builder.symbol(match(cim23Parser.IDENTIFIER));
+		}
+		match(LBRACE);
+		while(input.LA(1) != RBRACE) {
+			PropertyDecl property = classFeature();
+			if(property != null) {
+				decl.properties.add(property);
+			}
+		}
+		match(RBRACE);
+		match(SEMI);
+		builder.classDeclaration(decl);
+	}
+
+	/**
+	 * Parse a property, reference or method declaration.
+	 * @return the property declaration, or null for a method declaration.
+	 */
+	private PropertyDecl classFeature() throws RecognitionException {
+		List<Qualifier> qualifiers = null;
+		if(input.LA(1) == LBRACKET) {
+			qualifiers = qualifierList();
+		}
+		PropertyDecl property = new PropertyDecl();
+		List<Token> values = new ArrayList<Token>();
+		if(input.LA(1) == cim23Parser.IDENTIFIER) {
+			//Reference declaration
+			Token refClass = objectRef();
+			property.setName(builder.foldedSymbol(match(cim23Parser.IDENTIFIER)));
+			property.type = builder.referenceType(refClass);
+		}
+		else {
+			Token dataType = dataType();
+			Token name = match(cim23Parser.IDENTIFIER);
+			if(input.LA(1) == LPAREN) {
+				methodDeclaration();
+				return null;
+			}
+			property.setName(builder.foldedSymbol(name));
+			if(input.LA(1) == LBRACKET) {
+				property.type = builder.type(dataType, true, array());
+			}
+			else {
+				property.type = builder.type(dataType, false, 0);
+			}
+		}
+		if(input.LA(1) == EQUALS) {
+			input.consume();
+			initializer(values);
+		}
+		match(SEMI);
+		property.value = builder.values(values, property.type);
+		if(qualifiers != null) {
+			property.qualifiers.addAll(qualifiers);
+		}
+		return property;
+	}
+
+	private void methodDeclaration() throws RecognitionException {
+		match(LPAREN);
+		if(input.LA(1) != RPAREN) {
+			parameter();
+			while(input.LA(1) == COMMA) {
+				input.consume();
+				parameter();
+			}
+		}
+		match(RPAREN);
+		match(SEMI);
+	}
+
+	private void parameter() throws RecognitionException {
+		if(input.LA(1) == LBRACKET) {
+			qualifierList();
+		}
+		if(input.LA(1) == cim23Parser.IDENTIFIER) {
+			objectRef();
+		}
+		else {
+			dataType();
+		}
+		match(cim23Parser.IDENTIFIER);
+		if(input.LA(1) == LBRACKET) {
+			array();
+		}
+	}
+
+	private Token objectRef() throws RecognitionException {
+		Token refClass = match(cim23Parser.IDENTIFIER);
+		match(cim23Parser.REF);
+		return refClass;
+	}
+
+	private Token dataType() throws RecognitionException {
+		switch(input.LA(1)) {
+		case cim23Parser.DT_UINT8: case cim23Parser.DT_SINT8: 
+		case cim23Parser.DT_UINT16: case cim23Parser.DT_SINT16:
+		case cim23Parser.DT_UINT32: case cim23Parser.DT_SINT32: 
+		case cim23Parser.DT_UINT64: case cim23Parser.DT_SINT64:
+		case cim23Parser.DT_REAL32: case cim23Parser.DT_REAL64: 
+		case cim23Parser.DT_CHAR16: case cim23Parser.DT_STR: 
+		case cim23Parser.DT_BOOL: case cim23Parser.DT_DATETIME:
+			Token dataType = input.LT(1);
+			input.consume();
+			return dataType;
+		default:
+			throw new NoViableAltException("dataType", 0, 0, input);
+		}
+	}
+
+	/**
+	 * Parse an array declaration.
+	 * @return the array size, or -1 for an array with unlimited size.
+	 */
+	private int array() throws RecognitionException {
+		match(LBRACKET);
+		int size = -1;
+		if(input.LA(1) == cim23Parser.DECIMAL_DIGIT) {
+			StringBuilder digits = new StringBuilder();
+			while(input.LA(1) == cim23Parser.DECIMAL_DIGIT) {
+				digits.append(input.LT(1).getText());
+				input.consume();
+			}
+			size = Integer.parseInt(digits.toString());
+		}
+		match(RBRACKET);
+		return size;
+	}
+
+	private List<Qualifier> qualifierList() throws RecognitionException {
+		List<Qualifier> qualifiers = new ArrayList<Qualifier>();
+		match(LBRACKET);
+		qualifiers.add(qualifier());
+		while(input.LA(1) == COMMA) {
+			input.consume();
+			qualifiers.add(qualifier());
+		}
+		match(RBRACKET);
+		return qualifiers;
+	}
+
+	private Qualifier qualifier() throws RecognitionException {
+		Token name = qualifierName();
+		List<Token> values = new ArrayList<Token>();
+		List<Token> flavors = new ArrayList<Token>();
+		boolean isArray = false;
+		if(input.LA(1) == LPAREN) {
+			input.consume();
+			constantValue(values);
+			match(RPAREN);
+		}
+		else if(input.LA(1) == LBRACE) {
+			arrayInitializer(values);
+			isArray = true;
+		}
+		if(input.LA(1) == COLON) {
+			input.consume();
+			do {
+				flavors.add(flavor());
+			} while(isFlavor(input.LA(1)));
+		}
+		return builder.qualifier(name, values, isArray, flavors);
+	}
+
+	private Token qualifierName() throws RecognitionException {
+		int la = input.LA(1);
+		if(la != cim23Parser.IDENTIFIER && la != cim23Parser.ASSOCIATION &&
+				la != cim23Parser.INDICATION && la != cim23Parser.SCHEMA) {
+			throw new NoViableAltException("qualifierName", 0, 0, input);
+		}
+		Token name = input.LT(1);
+		input.consume();
+		return name;
+	}
+
+	private boolean isFlavor(int type) {
+		switch(type) {
+		case cim23Parser.ENABLEOVERRIDE: case cim23Parser.DISABLEOVERRIDE: 
+		case cim23Parser.RESTRICTED: case cim23Parser.TOSUBCLASS: 
+		case cim23Parser.TRANSLATABLE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private Token flavor() throws RecognitionException {
+		if(!isFlavor(input.LA(1))) {
+			throw new NoViableAltException("flavor", 0, 0, input);
+		}
+		Token flavor = input.LT(1);
+		input.consume();
+		return flavor;
+	}
+
+	private void initializer(List<Token> values) throws RecognitionException {
+		int la = input.LA(1);
+		if(la == LBRACE) {
+			arrayInitializer(values);
+		}
+		else if(la == DOLLAR) {
+			values.add(aliasIdentifier());
+		}
+		else if(la == QUOTE) {
+			objectHandle();
+		}
+		else {
+			constantValue(values);
+		}
+	}
+
+	private void arrayInitializer(List<Token> values) throws RecognitionException {
+		match(LBRACE);
+		constantValue(values);
+		while(input.LA(1) == COMMA) {
+			input.consume();
+			constantValue(values);
+		}
+		match(RBRACE);
+	}
+
+	private void constantValue(List<Token> values) throws RecognitionException {
+		int la = input.LA(1);
+		if(la == cim23Parser.BINARY_VALUE || la == cim23Parser.OCTAL_VALUE ||
+				la == cim23Parser.DECIMAL_VALUE || la == cim23Parser.HEX_VALUE ||
+				la == cim23Parser.CHAR_VALUE || la == cim23Parser.TRUE || 
+				la == cim23Parser.FALSE || la == cim23Parser.NULL_VALUE) {
+			values.add(input.LT(1));
+			input.consume();
+		}
+		else if(la == PLUS || la == MINUS) {
+			values.add(realValue());
+		}
+		else {
+			//Multi line string, which may be empty
+			while(input.LA(1) == cim23Parser.STRING_VALUE) {
+				values.add(input.LT(1));
+				input.consume();
+			}
+		}
+	}
+
+	/**
+	 * Parse a real value.
+	 * @return a token holding the whole value text.
+	 */
+	private Token realValue() throws RecognitionException {
+		StringBuilder text = new StringBuilder();
+		text.append(input.LT(1).getText());
+		input.consume();
+		while(input.LA(1) == cim23Parser.DECIMAL_DIGIT) {
+			text.append(consumeText());
+		}
+		text.append(match(DOT).getText());
+		do {
+			text.append(match(cim23Parser.DECIMAL_DIGIT).getText());
+		} while(input.LA(1) == cim23Parser.DECIMAL_DIGIT);
+		if(input.LA(1) == LOWER_E || input.LA(1) == UPPER_E) {
+			text.append(consumeText());
+			if(input.LA(1) == PLUS || input.LA(1) == MINUS) {
+				text.append(consumeText());
+			}
+			do {
+				text.append(match(cim23Parser.DECIMAL_DIGIT).getText());
+			} while(input.LA(1) == cim23Parser.DECIMAL_DIGIT);
+		}
+		return new CommonToken(cim23Parser.DECIMAL_VALUE, text.toString());
+	}
+
+	private Token aliasIdentifier() throws RecognitionException {
+		match(DOLLAR);
+		return match(cim23Parser.IDENTIFIER);
+	}
+
+	/**
+	 * Skip an object handle. Object handles are not reported as values.
+	 */
+	private void objectHandle() throws RecognitionException {
+		match(QUOTE);
+		while(input.LA(1) != QUOTE) {
+			if(input.LA(1) == Token.EOF) {
+				throw new MismatchedTokenException(QUOTE, input);
+			}
+			input.consume();
+		}
+		match(QUOTE);
+	}
+
+	private void qualifierDeclaration() throws RecognitionException, MOFParserException {
+		QualifierDecl decl = new QualifierDecl();
+		List<Token> values = new ArrayList<Token>();
+		match(cim23Parser.QUALIFIER);
+		decl.name = builder.symbol(qualifierName());
+		//Qualifier type
+		match(COLON);
+		Token dataType = dataType();
+		if(input.LA(1) == LBRACKET) {
+			decl.type = builder.type(dataType, true, array());
+		}
+		else {
+			decl.type = builder.type(dataType, false, 0);
+		}
+		if(input.LA(1) == EQUALS) {
+			input.consume();
+			initializer(values);
+		}
+		decl.defaultValue = builder.values(values, decl.type);
+		//Qualifier scope
+		match(COMMA);
+		match(cim23Parser.SCOPE);
+		match(LPAREN);
+		builder.scope(decl, metaElement());
+		while(input.LA(1) == COMMA) {
+			input.consume();
+			builder.scope(decl, metaElement());
+		}
+		match(RPAREN);
+		//Default flavor
+		if(input.LA(1) == COMMA) {
+			input.consume();
+			match(cim23Parser.FLAVOR);
+			match(LPAREN);
+			builder.flavor(decl, flavor());
+			while(input.LA(1) == COMMA) {
+				input.consume();
+				builder.flavor(decl, flavor());
+			}
+			match(RPAREN);
+		}
+		match(SEMI);
+		builder.qualifierDeclaration(decl);
+	}
+
+	private Token metaElement() throws RecognitionException {
+		int la = input.LA(1);
+		if(la != cim23Parser.CLASS && la != cim23Parser.ASSOCIATION && la != cim23Parser.INDICATION &&
+				la != cim23Parser.QUALIFIER && la != cim23Parser.PROPERTY && la != cim23Parser.REFERENCE &&
+				la != cim23Parser.METHOD && la != cim23Parser.PARAMETER && la != cim23Parser.ANY) {
+			throw new NoViableAltException("metaElement", 0, 0, input);
+		}
+		Token element = input.LT(1);
+		input.consume();
+		return element;
+	}
+
+	private void instanceDeclaration() throws RecognitionException, MOFParserException {
+		InstDecl decl = new InstDecl();
+		match(cim23Parser.INSTANCE);
+		match(cim23Parser.OF);
+		decl.className = builder.symbol(match(cim23Parser.IDENTIFIER));
+		if(input.LA(1) == cim23Parser.AS) {
+			input.consume();
+			decl.alias = aliasIdentifier().getText();
+		}
+		match(LBRACE);
+		do {
+			decl.properties.add(valueInitializer());
+		} while(input.LA(1) != RBRACE);
+		match(RBRACE);
+		match(SEMI);
+		builder.instanceDeclaration(decl);
+	}
+
+	private InstancePropertyDecl valueInitializer() throws RecognitionException {
+		if(input.LA(1) == LBRACKET) {
+			qualifierList();
+		}
+		Token name = match(cim23Parser.IDENTIFIER);
+		match(EQUALS);
+		List<Token> values = new ArrayList<Token>();
+		initializer(values);
+		match(SEMI);
+		return builder.instanceProperty(name, values);
+	}
+
+	private String consumeText() {
+		String text = input.LT(1).getText();
+		input.consume();
+		return text;
+	}
+
+	private Token match(int type) throws RecognitionException {
+		if(input.LA(1) != type) {
+			throw new MismatchedTokenException(type, input);
+		}
+		Token token = input.LT(1);
+		input.consume();
+		return token;
+	}
+}
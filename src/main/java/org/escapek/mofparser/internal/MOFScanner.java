@@ -0,0 +1,603 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.exceptions.MOFParserException;
+
+/**
+ * Hand written scanner for the CIM 2.3 grammar token set.
+ * This scanner produces the same token stream as the generated {@link cim23Lexer}, but matches
+ * tokens with direct character tests instead of DFA predictions. Keywords are recognized through
+ * a precomputed hash table, without allocating the identifier text.
+ * As for the generated lexer, input stream must be case insensitive.
+ * Scan errors are sent to the error handler as {@link MOFParserException#SCAN_ERROR} exceptions.
+ * As {@link TokenSource#nextToken()} can't throw them, exceptions thrown by the handler, or scan errors
+ * when there is no handler, are thrown wrapped in a {@link ScanException}.
+ * @author nico
+ *
+ */
+public class MOFScanner implements TokenSource {
+	private static final int LPAREN = literal("(");
+	private static final int RPAREN = literal(")");
+	private static final int LBRACE = literal("{");
+	private static final int RBRACE = literal("}");
+	private static final int LBRACKET = literal("[");
+	private static final int RBRACKET = literal("]");
+	private static final int SEMI = literal(";");
+	private static final int COLON = literal(":");
+	private static final int COMMA = literal(",");
+	private static final int EQUALS = literal("=");
+	private static final int DOLLAR = literal("$");
+	private static final int DOT = literal(".");
+	private static final int QUOTE = literal("\"");
+	private static final int PLUS = literal("+");
+	private static final int MINUS = literal("-");
+	private static final int NAMESPACE_SEPARATOR = literal("://");
+
+	private static final int KEYWORD_TABLE_SIZE = 128;
+	private static final String[] KEYWORDS = new String[KEYWORD_TABLE_SIZE];
+	private static final int[] KEYWORD_HASHES = new int[KEYWORD_TABLE_SIZE];
+	private static final int[] KEYWORD_TYPES = new int[KEYWORD_TABLE_SIZE];
+
+	static {
+		keyword("class", cim23Lexer.CLASS);
+		keyword("qualifier", cim23Lexer.QUALIFIER);
+		keyword("scope", cim23Lexer.SCOPE);
+		keyword("flavor", cim23Lexer.FLAVOR);
+		keyword("association", cim23Lexer.ASSOCIATION);
+		keyword("indication", cim23Lexer.INDICATION);
+		keyword("property", cim23Lexer.PROPERTY);
+		keyword("schema", cim23Lexer.SCHEMA);
+		keyword("any", cim23Lexer.ANY);
+		keyword("as", cim23Lexer.AS);
+		keyword("disableoverride", cim23Lexer.DISABLEOVERRIDE);
+		keyword("boolean", cim23Lexer.DT_BOOL);
+		keyword("char16", cim23Lexer.DT_CHAR16);
+		keyword("datetime", cim23Lexer.DT_DATETIME);
+		keyword("real32", cim23Lexer.DT_REAL32);
+		keyword("real64", cim23Lexer.DT_REAL64);
+		keyword("sint16", cim23Lexer.DT_SINT16);
+		keyword("sint32", cim23Lexer.DT_SINT32);
+		keyword("sint64", cim23Lexer.DT_SINT64);
+		keyword("sint8", cim23Lexer.DT_SINT8);
+		keyword("string", cim23Lexer.DT_STR);
+		keyword("uint16", cim23Lexer.DT_UINT16);
+		keyword("uint32", cim23Lexer.DT_UINT32);
+		keyword("uint64", cim23Lexer.DT_UINT64);
+		keyword("uint8", cim23Lexer.DT_UINT8);
+		keyword("enableoverride", cim23Lexer.ENABLEOVERRIDE);
+		keyword("false", cim23Lexer.FALSE);
+		keyword("instance", cim23Lexer.INSTANCE);
+		keyword("method", cim23Lexer.METHOD);
+		keyword("null", cim23Lexer.NULL_VALUE);
+		keyword("of", cim23Lexer.OF);
+		keyword("parameter", cim23Lexer.PARAMETER);
+		keyword("ref", cim23Lexer.REF);
+		keyword("reference", cim23Lexer.REFERENCE);
+		keyword("restricted", cim23Lexer.RESTRICTED);
+		keyword("tosubclass", cim23Lexer.TOSUBCLASS);
+		keyword("translatable", cim23Lexer.TRANSLATABLE);
+		keyword("true", cim23Lexer.TRUE);
+		//'e' is an implicit token of the real_value rule, and wins over IDENTIFIER
+		keyword("e", literal("e"));
+	}
+
+	private CharStream input;
+	private IContentHandler errorHandler;
+	//Folded characters of the identifier being scanned
+	private char[] fold = new char[32];
+
+	public MOFScanner() {
+	}
+
+	public MOFScanner(CharStream input) {
+		this.input = input;
+	}
+
+	public void setCharStream(CharStream input) {
+		this.input = input;
+	}
+
+	public CharStream getCharStream() {
+		return input;
+	}
+
+	/**
+	 * Set the handler receiving scan errors.
+	 * @param errorHandler error handler, or null to throw scan errors
+	 */
+	public void setErrorHandler(IContentHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Return the token type assigned by the grammar to a literal.
+	 */
+	static int literal(String text) {
+		String name = "'" + text + "'";
+		for(int i = 0; i < cim23Parser.tokenNames.length; i++) {
+			if(name.equals(cim23Parser.tokenNames[i])) {
+				return i;
+			}
+		}
+		return Token.INVALID_TOKEN_TYPE;
+	}
+
+	private static void keyword(String text, int type) {
+		int hash = text.hashCode();
+		int i = hash & (KEYWORD_TABLE_SIZE - 1);
+		while(KEYWORDS[i] != null) {
+			i = (i + 1) & (KEYWORD_TABLE_SIZE - 1);
+		}
+		KEYWORDS[i] = text;
+		KEYWORD_HASHES[i] = hash;
+		KEYWORD_TYPES[i] = type;
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isHexDigit(int c) {
+		return isDigit(c) || (c >= 'a' && c <= 'f');
+	}
+
+	private static boolean isLetter(int c) {
+		return c >= 'a' && c <= 'z';
+	}
+
+	public Token nextToken() {
+		while(true) {
+			if(input instanceof CaseInsensitiveWindowedStream) {
+				((CaseInsensitiveWindowedStream)input).commit();
+			}
+			int start = input.index();
+			int line = input.getLine();
+			int charPositionInLine = input.getCharPositionInLine();
+			int c = input.LA(1);
+			if(c == CharStream.EOF) {
+				return Token.EOF_TOKEN;
+			}
+			int channel = Token.DEFAULT_CHANNEL;
+			int type;
+			switch(c) {
+			case ' ':
+			case '\t':
+				do {
+					input.consume();
+				} while(input.LA(1) == ' ' || input.LA(1) == '\t');
+				type = cim23Lexer.WS;
+				channel = Token.HIDDEN_CHANNEL;
+				break;
+			case '\n':
+				input.consume();
+				type = cim23Lexer.EOL;
+				channel = Token.HIDDEN_CHANNEL;
+				break;
+			case '\r':
+				input.consume();
+				if(input.LA(1) == '\n') {
+					input.consume();
+					type = cim23Lexer.EOL;
+					channel = Token.HIDDEN_CHANNEL;
+				}
+				else {
+					type = cim23Lexer.STRING_CHAR;
+				}
+				break;
+			case '/':
+				if(input.LA(2) == '/') {
+					type = scanLineComment();
+					channel = Token.HIDDEN_CHANNEL;
+				}
+				else if(input.LA(2) == '*') {
+					type = scanBlockComment();
+					channel = Token.HIDDEN_CHANNEL;
+				}
+				else {
+					input.consume();
+					type = cim23Lexer.STRING_CHAR;
+				}
+				break;
+			case '"':
+				type = scanString();
+				break;
+			case '\\':
+				//Outside of strings, escape sequences are matched by STRING_CHAR
+				if(isEscape(input.LA(2))) {
+					scanEscape();
+				}
+				else {
+					input.consume();
+				}
+				type = cim23Lexer.STRING_CHAR;
+				break;
+			case '#':
+				type = scanPragma();
+				break;
+			case '+':
+			case '-':
+				input.consume();
+				if(isDigit(input.LA(1))) {
+					type = scanNumber();
+				}
+				else {
+					type = (c == '+') ? PLUS : MINUS;
+				}
+				break;
+			case ':':
+				if(input.LA(2) == '/' && input.LA(3) == '/') {
+					input.consume();
+					input.consume();
+					input.consume();
+					type = NAMESPACE_SEPARATOR;
+				}
+				else {
+					input.consume();
+					type = COLON;
+				}
+				break;
+			case '(':
+				input.consume();
+				type = LPAREN;
+				break;
+			case ')':
+				input.consume();
+				type = RPAREN;
+				break;
+			case '{':
+				input.consume();
+				type = LBRACE;
+				break;
+			case '}':
+				input.consume();
+				type = RBRACE;
+				break;
+			case '[':
+				input.consume();
+				type = LBRACKET;
+				break;
+			case ']':
+				input.consume();
+				type = RBRACKET;
+				break;
+			case ';':
+				input.consume();
+				type = SEMI;
+				break;
+			case ',':
+				input.consume();
+				type = COMMA;
+				break;
+			case '=':
+				input.consume();
+				type = EQUALS;
+				break;
+			case '$':
+				input.consume();
+				type = DOLLAR;
+				break;
+			case '.':
+				input.consume();
+				type = DOT;
+				break;
+			default:
+				if(isDigit(c)) {
+					type = scanNumber();
+				}
+				else if(isLetter(c)) {
+					type = scanIdentifier();
+				}
+				else if(c >= '\u0001' && c <= '\uFFEF') {
+					input.consume();
+					type = cim23Lexer.STRING_CHAR;
+				}
+				else {
+					reportError(line, charPositionInLine, "no viable alternative at character " + c);
+					input.consume();
+					continue;
+				}
+			}
+			if(type == Token.INVALID_TOKEN_TYPE) {
+				//Scan error already reported, token is dropped
+				continue;
+			}
+			CommonToken token = new CommonToken(input, type, channel, start, input.index() - 1);
+			token.setLine(line);
+			token.setCharPositionInLine(charPositionInLine);
+			if(input instanceof CaseInsensitiveWindowedStream) {
+				token.setText(input.substring(start, input.index() - 1));
+			}
+			return token;
+		}
+	}
+
+	private int scanIdentifier() {
+		int len = 0;
+		int hash = 0;
+		int c = input.LA(1);
+		do {
+			if(len == fold.length) {
+				char[] tmp = new char[fold.length * 2];
+				System.arraycopy(fold, 0, tmp, 0, len);
+				fold = tmp;
+			}
+			fold[len++] = (char)c;
+			hash = 31 * hash + c;
+			input.consume();
+			c = input.LA(1);
+		} while(isLetter(c) || isDigit(c) || c == '_');
+
+		int i = hash & (KEYWORD_TABLE_SIZE - 1);
+		while(KEYWORDS[i] != null) {
+			if(KEYWORD_HASHES[i] == hash && matches(KEYWORDS[i], len)) {
+				return KEYWORD_TYPES[i];
+			}
+			i = (i + 1) & (KEYWORD_TABLE_SIZE - 1);
+		}
+		if(len == 1) {
+			//STRING_CHAR is defined before IDENTIFIER, and wins for single letters
+			return cim23Lexer.STRING_CHAR;
+		}
+		return cim23Lexer.IDENTIFIER;
+	}
+
+	private boolean matches(String keyword, int len) {
+		if(keyword.length() != len) {
+			return false;
+		}
+		for(int i = 0; i < len; i++) {
+			if(keyword.charAt(i) != fold[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Scan a number, starting at its first digit. Sign, if any, has already been consumed.
+	 */
+	private int scanNumber() {
+		if(input.LA(1) == '0' && input.LA(2) == 'x' && isHexDigit(input.LA(3))) {
+			input.consume();
+			input.consume();
+			while(isHexDigit(input.LA(1))) {
+				input.consume();
+			}
+			return cim23Lexer.HEX_VALUE;
+		}
+		int binaryDigits = 0;
+		int c = input.LA(1);
+		while(c == '0' || c == '1') {
+			binaryDigits++;
+			c = input.LA(binaryDigits + 1);
+		}
+		if(binaryDigits > 0 && c == 'b') {
+			for(int i = 0; i <= binaryDigits; i++) {
+				input.consume();
+			}
+			return cim23Lexer.BINARY_VALUE;
+		}
+		while(isDigit(input.LA(1))) {
+			input.consume();
+		}
+		return cim23Lexer.DECIMAL_VALUE;
+	}
+
+	/**
+	 * Scan a string literal, including adjacent literals ("abc""def").
+	 * A literal made of a single character or escape sequence is a CHAR_VALUE.
+	 */
+	private int scanString() {
+		int line = input.getLine();
+		int charPositionInLine = input.getCharPositionInLine();
+		int segments = 0;
+		int units = 0;
+		int marker = input.mark();
+		do {
+			//Opening quote
+			input.consume();
+			units = 0;
+			int c = input.LA(1);
+			while(c != '"') {
+				if(c == CharStream.EOF) {
+					if(segments == 0 && units == 1) {
+						return dropString(marker, true);
+					}
+					input.release(marker);
+					reportError(line, charPositionInLine, "unterminated string literal");
+					return Token.INVALID_TOKEN_TYPE;
+				}
+				if(c == '\\') {
+					if(!isEscape(input.LA(2))) {
+						//Invalid escape sequence
+						input.consume();
+						return dropString(marker, segments == 0 && units == 0);
+					}
+					scanEscape();
+				}
+				else {
+					input.consume();
+				}
+				units++;
+				c = input.LA(1);
+			}
+			//Closing quote
+			input.consume();
+			segments++;
+		} while(input.LA(1) == '"');
+		input.release(marker);
+
+		if(segments == 1 && units == 1) {
+			return cim23Lexer.CHAR_VALUE;
+		}
+		return cim23Lexer.STRING_VALUE;
+	}
+
+	/**
+	 * Report the current character and drop the string literal being scanned. As with the generated
+	 * lexer, scanning resumes after the opening quote when the literal type is not predicted yet
+	 * (first character or escape sequence), and after the offending character otherwise.
+	 */
+	private int dropString(int marker, boolean unpredicted) {
+		int c = input.LA(1);
+		reportError(input.getLine(), input.getCharPositionInLine(), "no viable alternative at character " + c);
+		if(unpredicted) {
+			input.rewind(marker);
+			input.consume();
+		}
+		else {
+			input.release(marker);
+			if(c != CharStream.EOF) {
+				input.consume();
+			}
+		}
+		return Token.INVALID_TOKEN_TYPE;
+	}
+
+	/**
+	 * Check if the character following a backslash starts an escape sequence.
+	 */
+	private static boolean isEscape(int c) {
+		switch(c) {
+		case 'n':
+		case 't':
+		case 'v':
+		case 'b':
+		case 'r':
+		case 'f':
+		case 'a':
+		case '\\':
+		case '?':
+		case '\'':
+		case '"':
+		case 'x':
+			return true;
+		default:
+			return c >= '0' && c <= '3';
+		}
+	}
+
+	private void scanEscape() {
+		//Backslash
+		input.consume();
+		int c = input.LA(1);
+		input.consume();
+		if(c >= '0' && c <= '3') {
+			int next = input.LA(1);
+			if(next >= '0' && next <= '7') {
+				input.consume();
+			}
+		}
+		else if(c == 'x' && isHexDigit(input.LA(1))) {
+			input.consume();
+		}
+	}
+
+	private int scanPragma() {
+		String pragma = "#pragma";
+		for(int i = 1; i < pragma.length(); i++) {
+			if(input.LA(i + 1) != pragma.charAt(i)) {
+				input.consume();
+				return cim23Lexer.STRING_CHAR;
+			}
+		}
+		for(int i = 0; i < pragma.length(); i++) {
+			input.consume();
+		}
+		return cim23Lexer.PRAGMA;
+	}
+
+	private int scanLineComment() {
+		int line = input.getLine();
+		int charPositionInLine = input.getCharPositionInLine();
+		input.consume();
+		input.consume();
+		int c = input.LA(1);
+		while(c != '\n' && c != '\r' && c != CharStream.EOF) {
+			input.consume();
+			c = input.LA(1);
+		}
+		if(c == '\r') {
+			input.consume();
+			c = input.LA(1);
+		}
+		if(c != '\n') {
+			reportError(line, charPositionInLine, "single line comment must end with a new line");
+			return Token.INVALID_TOKEN_TYPE;
+		}
+		input.consume();
+		return cim23Lexer.SL_COMMENT;
+	}
+
+	private int scanBlockComment() {
+		int line = input.getLine();
+		int charPositionInLine = input.getCharPositionInLine();
+		input.consume();
+		input.consume();
+		while(!(input.LA(1) == '*' && input.LA(2) == '/')) {
+			if(input.LA(1) == CharStream.EOF) {
+				reportError(line, charPositionInLine, "unterminated comment");
+				return Token.INVALID_TOKEN_TYPE;
+			}
+			input.consume();
+		}
+		input.consume();
+		input.consume();
+		return cim23Lexer.ML_COMMENT;
+	}
+
+	/**
+	 * Report a scan error to the error handler.
+	 * @throws ScanException if the handler throws the error, or if there is no handler
+	 */
+	protected void reportError(int line, int charPositionInLine, String message) {
+		MOFParserException error = new MOFParserException(MOFParserException.SCAN_ERROR, 
+				line + ":" + charPositionInLine, message);
+		if(errorHandler == null) {
+			throw new ScanException(error);
+		}
+		try {
+			errorHandler.error(error);
+		}
+		catch (MOFParserException e) {
+			throw new ScanException(e);
+		}
+	}
+
+	/**
+	 * Unchecked wrapper of scan errors, thrown by {@link MOFScanner#nextToken()}.
+	 */
+	public static class ScanException extends RuntimeException {
+		private static final long serialVersionUID = -4021985617466410275L;
+
+		ScanException(MOFParserException cause) {
+			super(cause);
+		}
+
+		public MOFParserException getException() {
+			return (MOFParserException) getCause();
+		}
+	}
+}
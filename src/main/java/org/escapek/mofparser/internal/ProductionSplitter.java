@@ -0,0 +1,153 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a MOF specification into chunks which can be parsed independently.
+ * Chunks end at a <code>;</code> located outside of any brace, parenthesis or bracket,
+ * string literal and comment, which is the end of a class, qualifier or instance declaration.
+ * @author nico
+ *
+ */
+public class ProductionSplitter {
+	/**
+	 * Default minimum chunk size, in characters.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * A part of the specification, made of complete productions.
+	 */
+	public static class Chunk {
+		/**
+		 * Index of the first character of the chunk
+		 */
+		public int start;
+
+		/**
+		 * Index following the last character of the chunk
+		 */
+		public int end;
+
+		/**
+		 * Line of the first character of the chunk
+		 */
+		public int line;
+
+		/**
+		 * Position in line of the first character of the chunk
+		 */
+		public int charPositionInLine;
+	}
+
+	/**
+	 * Split a specification into chunks of at least <code>chunkSize</code> characters, except
+	 * for the last one. Content located after the last production is kept in the last chunk.
+	 * @param content MOF specification
+	 * @param chunkSize minimum chunk size
+	 * @return chunks covering the whole content
+	 */
+	public static List<Chunk> split(String content, int chunkSize) {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		int length = content.length();
+		int depth = 0;
+		int line = 1;
+		int lineStart = 0;
+		Chunk chunk = newChunk(0, line, 0);
+		//Tell if a production starts after the last cut
+		boolean significant = false;
+		int i = 0;
+		while(i < length) {
+			char c = content.charAt(i);
+			if(c == '\n') {
+				line++;
+				lineStart = i + 1;
+			}
+			else if(c == '"') {
+				significant = true;
+				i++;
+				while(i < length && content.charAt(i) != '"') {
+					if(content.charAt(i) == '\\') {
+						i++;
+					}
+					else if(content.charAt(i) == '\n') {
+						line++;
+						lineStart = i + 1;
+					}
+					i++;
+				}
+			}
+			else if(c == '/' && i + 1 < length && content.charAt(i + 1) == '/') {
+				while(i + 1 < length && content.charAt(i + 1) != '\n') {
+					i++;
+				}
+			}
+			else if(c == '/' && i + 1 < length && content.charAt(i + 1) == '*') {
+				i += 2;
+				while(i < length && !(content.charAt(i) == '*' && i + 1 < length && content.charAt(i + 1) == '/')) {
+					if(content.charAt(i) == '\n') {
+						line++;
+						lineStart = i + 1;
+					}
+					i++;
+				}
+				i++;
+			}
+			else if(c == '{' || c == '(' || c == '[') {
+				significant = true;
+				depth++;
+			}
+			else if(c == '}' || c == ')' || c == ']') {
+				depth--;
+			}
+			else if(c == ';' && depth == 0) {
+				if(i + 1 - chunk.start >= chunkSize) {
+					chunk.end = i + 1;
+					chunks.add(chunk);
+					chunk = newChunk(i + 1, line, i + 1 - lineStart);
+					significant = false;
+				}
+			}
+			else if(c != ' ' && c != '\t' && c != '\r') {
+				significant = true;
+			}
+			i++;
+		}
+		if(significant || chunks.isEmpty()) {
+			chunk.end = length;
+			chunks.add(chunk);
+		}
+		else {
+			//Only whitespaces and comments after the last cut
+			chunks.get(chunks.size() - 1).end = length;
+		}
+		return chunks;
+	}
+
+	private static Chunk newChunk(int start, int line, int charPositionInLine) {
+		Chunk chunk = new Chunk();
+		chunk.start = start;
+		chunk.line = line;
+		chunk.charPositionInLine = charPositionInLine;
+		return chunk;
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
+import org.escapek.mofparser.IContentHandler;
+
+/**
+ * Thread-safe pool of lexers and parsers. Building a generated recognizer allocates its DFA
+ * tables, so recognizers are reused across parses instead of being built for each one.
+ * A recognizer set is used by a single parse at a time.
+ * @author nico
+ *
+ */
+public class RecognizerPool {
+	/**
+	 * Default maximum number of idle recognizer sets kept by a pool.
+	 */
+	public static final int DEFAULT_MAX_IDLE = 16;
+
+	private ConcurrentLinkedQueue<Recognizers> idle;
+	private AtomicInteger idleCount;
+	private int maxIdle;
+
+	/**
+	 * Lexers and parser used by a parse.
+	 */
+	public static class Recognizers {
+		private StreamingLexer lexer;
+		private MOFScanner scanner;
+		private cim23Parser parser;
+
+		/**
+		 * Return a token source reading the given input.
+		 * @param input stream to lex
+		 * @param fastLexer true to use the hand written scanner instead of the generated lexer
+		 * @param errorHandler handler receiving scan errors of the hand written scanner
+		 */
+		public TokenSource getTokenSource(CharStream input, boolean fastLexer, IContentHandler errorHandler) {
+			if(fastLexer) {
+				if(scanner == null) {
+					scanner = new MOFScanner();
+				}
+				scanner.setCharStream(input);
+				scanner.setErrorHandler(errorHandler);
+				return scanner;
+			}
+			if(lexer == null) {
+				lexer = new StreamingLexer();
+			}
+			lexer.setCharStream(input);
+			return lexer;
+		}
+
+		/**
+		 * Return a parser reading the given tokens.
+		 */
+		public cim23Parser getParser(TokenStream tokens) {
+			if(parser == null) {
+				parser = new cim23Parser(tokens);
+			}
+			else {
+				parser.setTokenStream(tokens);
+			}
+			return parser;
+		}
+
+		/**
+		 * Release the streams used by the recognizers.
+		 */
+		private void clear() {
+			if(lexer != null) {
+				lexer.setCharStream(null);
+			}
+			if(scanner != null) {
+				scanner.setCharStream(null);
+				scanner.setErrorHandler(null);
+			}
+			if(parser != null) {
+				parser.setTokenStream(null);
+			}
+		}
+	}
+
+	public RecognizerPool() {
+		this(DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * @param maxIdle maximum number of idle recognizer sets kept for reuse
+	 */
+	public RecognizerPool(int maxIdle) {
+		this.maxIdle = maxIdle;
+		idle = new ConcurrentLinkedQueue<Recognizers>();
+		idleCount = new AtomicInteger();
+	}
+
+	/**
+	 * Take a recognizer set from the pool, or build a new one if none is idle.
+	 */
+	public Recognizers borrow() {
+		Recognizers recognizers = idle.poll();
+		if(recognizers == null) {
+			return new Recognizers();
+		}
+		idleCount.decrementAndGet();
+		return recognizers;
+	}
+
+	/**
+	 * Give back a recognizer set once parsing is done.
+	 */
+	public void release(Recognizers recognizers) {
+		recognizers.clear();
+		if(idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(recognizers);
+		}
+		else {
+			idleCount.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.Token;
+
+/**
+ * CIM 2.3 lexer able to read from a {@link CaseInsensitiveWindowedStream}.
+ * Token text is copied when the token is emitted, as the characters it refers to may
+ * be dropped from the stream window afterwards.
+ * @author nico
+ *
+ */
+public class StreamingLexer extends cim23Lexer {
+
+	public StreamingLexer() {
+		super();
+	}
+
+	public StreamingLexer(CharStream input) {
+		super(input);
+	}
+
+	@Override
+	public Token nextToken() {
+		if(input instanceof CaseInsensitiveWindowedStream) {
+			((CaseInsensitiveWindowedStream)input).commit();
+		}
+		return super.nextToken();
+	}
+
+	@Override
+	public Token emit() {
+		if(input instanceof CaseInsensitiveWindowedStream) {
+			text = getText();
+		}
+		return super.emit();
+	}
+}
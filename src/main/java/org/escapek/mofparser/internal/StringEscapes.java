@@ -0,0 +1,178 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+
+/**
+ * Decodes and encodes MOF string literals in a single pass.
+ * Supported escape sequences are those of the grammar <code>ESC</code> rule: <code>\n \t \v \b \r \f \a 
+ * \\ \? \' \"</code>, octal sequences of one or two digits starting with 0 to 3, and <code>\x</code> 
+ * followed by one to four hexadecimal digits, as defined by the CIM specification.
+ * Strings without quotes or escape sequences are returned unchanged.
+ * @author nico
+ *
+ */
+public final class StringEscapes {
+	private StringEscapes() {
+	}
+
+	/**
+	 * Decode a value token. Unescaped double quotes are removed, so concatenated string 
+	 * literals (<code>"abc""def"</code>) are joined.
+	 * @param text token text
+	 * @return decoded value
+	 */
+	public static String decode(String text) {
+		int length = text.length();
+		int start = 0;
+		int end = length;
+		if(length >= 2 && text.charAt(0) == '"' && text.charAt(length - 1) == '"') {
+			start = 1;
+			end = length - 1;
+		}
+		int i = start;
+		while(i < end && text.charAt(i) != '\\' && text.charAt(i) != '"') {
+			i++;
+		}
+		if(i == end) {
+			return start == 0 ? text : text.substring(start, end);
+		}
+
+		StringBuilder out = new StringBuilder(end - start);
+		out.append(text, start, i);
+		while(i < end) {
+			char c = text.charAt(i++);
+			if(c == '"') {
+				continue;
+			}
+			if(c != '\\' || i == end) {
+				out.append(c);
+				continue;
+			}
+			c = text.charAt(i++);
+			switch(c) {
+			case 'n': out.append('\n'); break;
+			case 't': out.append('\t'); break;
+			case 'v': out.append('\u000B'); break;
+			case 'b': out.append('\b'); break;
+			case 'r': out.append('\r'); break;
+			case 'f': out.append('\f'); break;
+			case 'a': out.append('\u0007'); break;
+			case '0': case '1': case '2': case '3': {
+				int value = c - '0';
+				if(i < end && text.charAt(i) >= '0' && text.charAt(i) <= '7') {
+					value = value * 8 + (text.charAt(i++) - '0');
+				}
+				out.append((char) value);
+				break;
+			}
+			case 'x': case 'X': {
+				int value = 0;
+				int digits = 0;
+				while(digits < 4 && i < end && Character.digit(text.charAt(i), 16) >= 0) {
+					value = value * 16 + Character.digit(text.charAt(i++), 16);
+					digits++;
+				}
+				out.append(digits == 0 ? c : (char) value);
+				break;
+			}
+			default:
+				//\\ \? \' \" and unknown sequences stand for the escaped character
+				out.append(c);
+				break;
+			}
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Encode a value as the content of a MOF string literal, without surrounding quotes.
+	 * @param value value to encode
+	 * @return encoded value
+	 */
+	public static String encode(String value) {
+		int i = 0;
+		while(i < value.length() && !needsEscape(value.charAt(i))) {
+			i++;
+		}
+		if(i == value.length()) {
+			return value;
+		}
+		StringBuilder out = new StringBuilder(value.length() + 8);
+		encode(value, out);
+		return out.toString();
+	}
+
+	/**
+	 * Append an encoded value to a builder.
+	 * @param value value to encode
+	 * @param out builder receiving the encoded value
+	 */
+	public static void encode(String value, StringBuilder out) {
+		try {
+			encode(value, (Appendable)out);
+		}
+		catch (IOException e) {
+			//StringBuilder doesn't throw IOException
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Append an encoded value. Runs of characters which don't need escaping are appended at once.
+	 * @param value value to encode
+	 * @param out receives the encoded value
+	 * @throws IOException if <code>out</code> fails
+	 */
+	public static void encode(String value, Appendable out) throws IOException {
+		int run = 0;
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(!needsEscape(c)) {
+				continue;
+			}
+			if(run < i) {
+				out.append(value, run, i);
+			}
+			run = i + 1;
+			switch(c) {
+			case '\\': out.append("\\\\"); break;
+			case '"': out.append("\\\""); break;
+			case '\n': out.append("\\n"); break;
+			case '\t': out.append("\\t"); break;
+			case '\r': out.append("\\r"); break;
+			case '\b': out.append("\\b"); break;
+			case '\f': out.append("\\f"); break;
+			default:
+				out.append("\\x");
+				out.append(Character.forDigit(c >> 12, 16)).append(Character.forDigit((c >> 8) & 0xF, 16));
+				out.append(Character.forDigit((c >> 4) & 0xF, 16)).append(Character.forDigit(c & 0xF, 16));
+				break;
+			}
+		}
+		if(run < value.length()) {
+			out.append(value, run, value.length());
+		}
+	}
+
+	private static boolean needsEscape(char c) {
+		return c < 0x20 || c == '\\' || c == '"';
+	}
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
+
+/**
+ * ANTLR token stream which keeps tokens in a sliding window instead of buffering the whole document
+ * like CommonTokenStream does. Tokens located before the last consumed token and before any active
+ * marker are dropped when the window needs room, so memory use depends on the parser lookahead,
+ * not on the document size. The window grows if a decision needs more lookahead than it can hold.
+ * Off channel tokens can be discarded as soon as they are read from the token source.
+ * @author nico
+ *
+ */
+public class WindowedTokenStream implements TokenStream {
+	/**
+	 * Default window size, in tokens.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 256;
+
+	private TokenSource tokenSource;
+	private Token[] tokens;
+	//Absolute index of tokens[0] in the stream
+	private int offset;
+	//Number of valid tokens in the window
+	private int n;
+	private boolean eof;
+	private int channel = Token.DEFAULT_CHANNEL;
+	private boolean discardOffChannelTokens;
+
+	//Absolute index of the current token, -1 until the first token has been read
+	private int p = -1;
+	//Absolute index of the last consumed on channel token, -1 if none
+	private int previous = -1;
+	private int markDepth;
+	private int lastMarker;
+	private List<MarkState> markers;
+
+	private static class MarkState {
+		int p;
+		int previous;
+	}
+
+	public WindowedTokenStream(TokenSource tokenSource) {
+		this(tokenSource, DEFAULT_WINDOW_SIZE);
+	}
+
+	public WindowedTokenStream(TokenSource tokenSource, int windowSize) {
+		if(windowSize < 2) {
+			throw new IllegalArgumentException("Invalid window size: " + windowSize);
+		}
+		this.tokenSource = tokenSource;
+		tokens = new Token[windowSize];
+	}
+
+	/**
+	 * Tell the stream to drop off channel tokens (whitespaces, comments) as soon as they are read
+	 * from the token source. Such tokens are then never stored, and don't get a token index.
+	 * @param discardOffChannelTokens true to discard off channel tokens
+	 */
+	public void discardOffChannelTokens(boolean discardOffChannelTokens) {
+		this.discardOffChannelTokens = discardOffChannelTokens;
+	}
+
+	/**
+	 * Ensure the token at the given absolute index is loaded in the window.
+	 * @return false if index is beyond the end of the stream.
+	 */
+	private boolean fill(int index) {
+		while(index >= offset + n) {
+			if(eof) {
+				return false;
+			}
+			if(n == tokens.length) {
+				int discard = firstNeeded() - offset;
+				Token[] target = tokens;
+				if(discard < tokens.length / 2) {
+					//Lookahead doesn't leave enough free space: grow the window
+					target = new Token[tokens.length * 2];
+				}
+				System.arraycopy(tokens, discard, target, 0, n - discard);
+				if(target == tokens) {
+					//Release dropped tokens
+					Arrays.fill(tokens, n - discard, n, null);
+				}
+				tokens = target;
+				offset += discard;
+				n -= discard;
+			}
+			Token t = tokenSource.nextToken();
+			if(t == null || t.getType() == Token.EOF) {
+				eof = true;
+			}
+			else if(!discardOffChannelTokens || t.getChannel() == channel) {
+				t.setTokenIndex(offset + n);
+				tokens[n++] = t;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the absolute index of the first token still needed by the parser.
+	 */
+	private int firstNeeded() {
+		int index = previous >= 0 ? previous : p;
+		for(int m = 1; m <= markDepth; m++) {
+			MarkState state = markers.get(m);
+			index = Math.min(index, state.previous >= 0 ? state.previous : state.p);
+		}
+		return Math.max(index, offset);
+	}
+
+	/**
+	 * Return the absolute index of the first on channel token at or after the given index.
+	 */
+	private int skipOffChannelTokens(int index) {
+		while(fill(index) && tokens[index - offset].getChannel() != channel) {
+			index++;
+		}
+		return index;
+	}
+
+	private void setup() {
+		if(p == -1) {
+			p = 0;
+			p = skipOffChannelTokens(0);
+		}
+	}
+
+	public Token LT(int k) {
+		setup();
+		if(k == 0) {
+			return null;
+		}
+		if(k < 0) {
+			return LB(-k);
+		}
+		int index = p;
+		for(int i = 1; i < k; i++) {
+			index = skipOffChannelTokens(index + 1);
+		}
+		if(!fill(index)) {
+			return Token.EOF_TOKEN;
+		}
+		return tokens[index - offset];
+	}
+
+	/**
+	 * Look backwards k on channel tokens.
+	 */
+	private Token LB(int k) {
+		int index = p;
+		for(int i = 0; i < k; i++) {
+			index--;
+			while(index >= offset && tokens[index - offset].getChannel() != channel) {
+				index--;
+			}
+			if(index < offset) {
+				return null;
+			}
+		}
+		return tokens[index - offset];
+	}
+
+	public int LA(int i) {
+		Token t = LT(i);
+		if(t == null) {
+			return Token.INVALID_TOKEN_TYPE;
+		}
+		return t.getType();
+	}
+
+	public void consume() {
+		setup();
+		if(fill(p)) {
+			previous = p;
+			p = skipOffChannelTokens(p + 1);
+		}
+	}
+
+	public Token get(int i) {
+		if(i < offset) {
+			throw new IllegalStateException("Token " + i + " has already been dropped from the stream window");
+		}
+		if(!fill(i)) {
+			return Token.EOF_TOKEN;
+		}
+		return tokens[i - offset];
+	}
+
+	public TokenSource getTokenSource() {
+		return tokenSource;
+	}
+
+	public int index() {
+		setup();
+		return p;
+	}
+
+	/**
+	 * Return the number of tokens read so far. The total size of the stream is not known
+	 * until its end has been reached.
+	 */
+	public int size() {
+		return offset + n;
+	}
+
+	public int mark() {
+		setup();
+		if(markers == null) {
+			markers = new ArrayList<MarkState>();
+			markers.add(null);
+		}
+		markDepth++;
+		MarkState state;
+		if(markDepth >= markers.size()) {
+			state = new MarkState();
+			markers.add(state);
+		}
+		else {
+			state = markers.get(markDepth);
+		}
+		state.p = p;
+		state.previous = previous;
+		lastMarker = markDepth;
+		return markDepth;
+	}
+
+	public void rewind(int marker) {
+		MarkState state = markers.get(marker);
+		if(state.p < offset) {
+			throw new IllegalStateException("Token " + state.p + " has already been dropped from the stream window");
+		}
+		p = state.p;
+		previous = state.previous;
+		release(marker);
+	}
+
+	public void rewind() {
+		rewind(lastMarker);
+	}
+
+	public void release(int marker) {
+		markDepth = marker - 1;
+	}
+
+	public void seek(int index) {
+		setup();
+		if(index <= p) {
+			if(index < offset) {
+				throw new IllegalStateException("Token " + index + " has already been dropped from the stream window");
+			}
+			p = skipOffChannelTokens(index);
+			previous = -1;
+			for(int i = index - 1; i >= offset && previous == -1; i--) {
+				if(tokens[i - offset].getChannel() == channel) {
+					previous = i;
+				}
+			}
+			return;
+		}
+		while(p < index && fill(p)) {
+			consume();
+		}
+	}
+
+	public String toString(int start, int stop) {
+		if(start < offset) {
+			throw new IllegalStateException("Token " + start + " has already been dropped from the stream window");
+		}
+		StringBuilder buf = new StringBuilder();
+		for(int i = start; i <= stop && fill(i); i++) {
+			buf.append(tokens[i - offset].getText());
+		}
+		return buf.toString();
+	}
+
+	public String toString(Token start, Token stop) {
+		if(start != null && stop != null) {
+			return toString(start.getTokenIndex(), stop.getTokenIndex());
+		}
+		return null;
+	}
+}
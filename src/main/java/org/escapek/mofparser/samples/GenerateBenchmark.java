@@ -0,0 +1,61 @@
+package org.escapek.mofparser.samples;
+
+import org.escapek.mofparser.DataType;
+import org.escapek.mofparser.MOFGenerator;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.TypeDecl;
+
+/**
+ * Compares MOF generation with templates loaded for each declaration, as done before 
+ * {@link MOFGenerator} was introduced, and with a shared generator.
+ * Usage: GenerateBenchmark [class count]
+ */
+public class GenerateBenchmark {
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+		//Create class declarations
+		ClassDecl[] classes = new ClassDecl[count];
+		for(int i = 0; i < count; i++) {
+			ClassDecl decl = new ClassDecl();
+			decl.name = "Bench_Class" + i;
+			decl.parentClass = "CIM_ManagedElement";
+			Qualifier description = new Qualifier("Description");
+			description.value.add("Benchmark class " + i);
+			decl.qualifiers.add(description);
+			for(int j = 0; j < 8; j++) {
+				PropertyDecl prop = new PropertyDecl();
+				prop.name = "Property" + j;
+				prop.type = new TypeDecl(DataType.STRING.toString());
+				prop.qualifiers.add(new Qualifier("Read"));
+				decl.properties.add(prop);
+			}
+			classes[i] = decl;
+		}
+
+		//Warm up both code paths
+		run(classes, false);
+		run(classes, true);
+
+		long uncached = run(classes, false);
+		long cached = run(classes, true);
+		System.out.println(count + " classes");
+		System.out.println("templates loaded per declaration: " + uncached + " ms");
+		System.out.println("shared generator:                 " + cached + " ms");
+	}
+
+	private static long run(ClassDecl[] classes, boolean shared) {
+		long start = System.nanoTime();
+		long length = 0;
+		for(ClassDecl decl : classes) {
+			MOFGenerator generator = shared ? MOFGenerator.getDefault() : new MOFGenerator();
+			length += generator.generateMOF(decl).length();
+		}
+		if(length == 0) {
+			throw new IllegalStateException();
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
@@ -28,7 +28,7 @@ public class Sample2 {
 		InstancePropertyDecl dependent = new InstancePropertyDecl();
 		dependent.name = "Dependent";
 		dependent.type = new TypeDecl(DataType.STRING.toString());
-		dependent.value.add("CIM_Service.Name = \\\"mail\\\"");
+		dependent.value.add("CIM_Service.Name = \"mail\"");
 
 		InstancePropertyDecl ipAddresses = new InstancePropertyDecl();
 		ipAddresses.name = "ip_addresses";
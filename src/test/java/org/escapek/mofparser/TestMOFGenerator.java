@@ -0,0 +1,115 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMOFGenerator {
+	@Test
+	public void testGenerateValue() {
+		MOFGenerator generator = MOFGenerator.getDefault();
+		List<String> values = new ArrayList<String>();
+		values.add("a\"b");
+		values.add("c");
+		TypeDecl array = new TypeDecl(DataType.STRING.toString());
+		array.isArray = true;
+		Assert.assertEquals("{\"a\\\"b\", \"c\"}", generator.generateValue(values, array));
+		//Parts of a multi-line string
+		Assert.assertEquals("\"a\\\"bc\"", generator.generateValue(values, new TypeDecl(DataType.STRING.toString())));
+		Assert.assertEquals("\"a\\\"bc\"", generator.generateValue(values, null));
+		Assert.assertEquals("null", generator.generateValue(null, array));
+		Assert.assertEquals(2, values.size());
+		Assert.assertEquals("a\"b", values.get(0));
+	}
+
+	@Test
+	public void testSameAsNewGenerator() {
+		ClassDecl decl = createClass();
+		Assert.assertEquals(body(new MOFGenerator().generateMOF(decl)), 
+				body(MOFGenerator.getDefault().generateMOF(decl)));
+	}
+
+	@Test
+	public void testConcurrentGeneration() throws Exception {
+		final ClassDecl decl = createClass();
+		final String expected = body(MOFGenerator.getDefault().generateMOF(decl));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for(int i = 0; i < 4; i++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					public Boolean call() {
+						for(int j = 0; j < 200; j++) {
+							if(!expected.equals(body(MOFGenerator.getDefault().generateMOF(decl)))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for(Future<Boolean> result : results) {
+				Assert.assertTrue(result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private static ClassDecl createClass() {
+		ClassDecl decl = new ClassDecl();
+		decl.name = "Test_Class";
+		decl.parentClass = "CIM_ManagedElement";
+		Qualifier description = new Qualifier("Description");
+		description.value.add("A test class");
+		decl.qualifiers.add(description);
+		PropertyDecl prop = new PropertyDecl();
+		prop.name = "Name";
+		prop.type = new TypeDecl(DataType.STRING.toString());
+		prop.qualifiers.add(new Qualifier("Key"));
+		decl.properties.add(prop);
+		return decl;
+	}
+
+	/**
+	 * Remove the generated header, which holds the generation date.
+	 */
+	private static String body(String mof) {
+		StringBuilder body = new StringBuilder();
+		for(String line : mof.split("\n")) {
+			if(!line.startsWith("//")) {
+				body.append(line).append('\n');
+			}
+		}
+		return body.toString();
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Test;
+
+public class TestMOFParserDirectMode {
+
+	private DefaultHandler parse(String resource, ParseMode mode) throws IOException, MOFParserException {
+		MOFParser parser = new MOFParser();
+		parser.setMode(mode);
+		InputStream is = this.getClass().getResourceAsStream(resource);
+		DefaultHandler handler = new DefaultHandler();
+		try {
+			parser.parse(is, handler);
+		}
+		finally {
+			is.close();
+		}
+		return handler;
+	}
+
+	@Test public void testQualifierDeclarations() throws IOException, MOFParserException {
+		List<QualifierDecl> tree = parse("qualifiers.mof", ParseMode.TREE).getQualifiers();
+		List<QualifierDecl> direct = parse("qualifiers.mof", ParseMode.DIRECT).getQualifiers();
+		assertTrue(tree.size() > 0);
+		assertEquals(tree.size(), direct.size());
+		for(int i = 0; i < tree.size(); i++) {
+			QualifierDecl expected = tree.get(i);
+			QualifierDecl actual = direct.get(i);
+			assertEquals(expected.name, actual.name);
+			assertEquals(expected.type.name, actual.type.name);
+			assertEquals(expected.type.isArray, actual.type.isArray);
+			assertEquals(expected.type.arraySize, actual.type.arraySize);
+			assertEquals(expected.defaultValue, actual.defaultValue);
+			assertEquals(expected.scopes, actual.scopes);
+			assertEquals(expected.flavors, actual.flavors);
+		}
+	}
+
+	@Test public void testClassDeclaration() throws IOException, MOFParserException {
+		List<ClassDecl> tree = parse("CIM_ManagedElement.mof", ParseMode.TREE).getClasses();
+		List<ClassDecl> direct = parse("CIM_ManagedElement.mof", ParseMode.DIRECT).getClasses();
+		assertEquals(1, direct.size());
+		ClassDecl expected = tree.get(0);
+		ClassDecl actual = direct.get(0);
+		assertEquals(expected.name, actual.name);
+		assertEquals(expected.parentClass, actual.parentClass);
+		assertEquals(expected.qualifiers.size(), actual.qualifiers.size());
+		for(Qualifier expectedQual : expected.qualifiers) {
+			Qualifier actualQual = getQualifier(actual.qualifiers, expectedQual.name);
+			assertEquals(expectedQual.value, actualQual.value);
+		}
+		assertEquals(expected.properties.size(), actual.properties.size());
+		for(PropertyDecl expectedProp : expected.properties) {
+			PropertyDecl actualProp = getProperty(actual.properties, expectedProp.name);
+			assertEquals(expectedProp.type.name, actualProp.type.name);
+			assertEquals(expectedProp.type.isArray, actualProp.type.isArray);
+			assertEquals(expectedProp.value, actualProp.value);
+			assertEquals(expectedProp.qualifiers.size(), actualProp.qualifiers.size());
+		}
+	}
+
+	@Test public void testQualifierFlavors() throws MOFParserException {
+		String content = "[Key, Description(\"a\") : ToSubclass DisableOverride Translatable] " +
+			"class Test { [Read] string Name; };";
+		for(ParseMode mode : ParseMode.values()) {
+			MOFParser parser = new MOFParser();
+			parser.setMode(mode);
+			DefaultHandler handler = new DefaultHandler();
+			parser.parse(content, handler);
+			ClassDecl cDecl = handler.getClasses().get(0);
+			Qualifier description = getQualifier(cDecl.qualifiers, "Description");
+			assertEquals(1, description.value.size());
+			assertEquals("a", description.value.get(0));
+			assertEquals(3, description.flavors.size());
+			assertTrue(description.flavors.contains(FlavorType.TOSUBCLASS.toString()));
+			assertTrue(description.flavors.contains(FlavorType.DISABLEOVERRIDE.toString()));
+			assertTrue(description.flavors.contains(FlavorType.TRANSLATE.toString()));
+		}
+	}
+
+	@Test public void testInstanceWithoutAlias() throws MOFParserException {
+		String content = "instance of Test { Name = \"test\"; Caption = null; };\n" +
+			"instance of Test as $Other { Name = \"other\"; Caption = NULL; };";
+		for(ParseMode mode : ParseMode.values()) {
+			MOFParser parser = new MOFParser();
+			parser.setMode(mode);
+			DefaultHandler handler = new DefaultHandler();
+			parser.parse(content, handler);
+			List<InstDecl> instances = handler.getInstances();
+			assertEquals(mode.toString(), 2, instances.size());
+			InstDecl iDecl = instances.get(0);
+			assertEquals("Test", iDecl.className);
+			assertNull(iDecl.alias);
+			assertEquals("Other", instances.get(1).alias);
+			for(InstDecl decl : instances) {
+				assertEquals(2, decl.properties.size());
+				for(InstancePropertyDecl prop : decl.properties) {
+					if(prop.name.equals("Name")) {
+						assertEquals(decl == iDecl ? "test" : "other", prop.value.get(0));
+					}
+					else {
+						assertNull(prop.value);
+					}
+				}
+			}
+		}
+	}
+
+	private Qualifier getQualifier(Set<Qualifier> qualifiers, String name) {
+		for(Qualifier qual : qualifiers) {
+			if(qual.name.equals(name)) {
+				return qual;
+			}
+		}
+		return null;
+	}
+
+	private PropertyDecl getProperty(Set<PropertyDecl> properties, String name) {
+		for(PropertyDecl prop : properties) {
+			if(prop.name.equals(name)) {
+				return prop;
+			}
+		}
+		return null;
+	}
+}
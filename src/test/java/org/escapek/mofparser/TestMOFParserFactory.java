@@ -0,0 +1,118 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Test;
+
+public class TestMOFParserFactory {
+	private String readResource(String name) throws IOException {
+		InputStream is = this.getClass().getResourceAsStream(name);
+		Reader reader = new InputStreamReader(is);
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[1024];
+		int numRead;
+		while((numRead = reader.read(buf)) != -1) {
+			sb.append(buf, 0, numRead);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	@Test public void testReuseRecognizers() throws IOException, MOFParserException {
+		String content = readResource("CIM_ManagedElement.mof");
+		MOFParser parser = new MOFParserFactory(1).newParser();
+		for(int i = 0; i < 3; i++) {
+			DefaultHandler handler = new DefaultHandler();
+			parser.parse(content, handler);
+			assertEquals(1, handler.getClasses().size());
+			assertTrue(handler.getClasses().get(0).properties.contains(new PropertyDecl("Caption")));
+		}
+	}
+
+	@Test public void testConcurrentParse() throws Exception {
+		final String content = readResource("CIM_ManagedElement.mof");
+		final MOFParser parser = new MOFParserFactory().newParser();
+		DefaultHandler expected = new DefaultHandler();
+		parser.parse(content, expected);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ClassDecl>> results = new ArrayList<Future<ClassDecl>>();
+			for(int i = 0; i < 64; i++) {
+				results.add(executor.submit(new Callable<ClassDecl>() {
+					public ClassDecl call() throws MOFParserException {
+						DefaultHandler handler = new DefaultHandler();
+						parser.parse(content, handler);
+						assertEquals(1, handler.getClasses().size());
+						return handler.getClasses().get(0);
+					}
+				}));
+			}
+			for(Future<ClassDecl> result : results) {
+				ClassDecl cDecl = result.get();
+				assertEquals("CIM_ManagedElement", cDecl.name);
+				assertEquals(expected.getClasses().get(0).properties, cDecl.properties);
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test public void testNestedParse() throws MOFParserException {
+		MOFParserFactory factory = new MOFParserFactory();
+		for(ParseMode mode : ParseMode.values()) {
+			factory.setMode(mode);
+			final MOFParser parser = factory.newParser();
+			final DefaultHandler handler = new DefaultHandler() {
+				public void include(String name) {
+					try {
+						parser.parse("class Included { [Key] string Name; };", this);
+					}
+					catch (MOFParserException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			};
+			parser.parse("class First { }; #pragma include (\"included.mof\") class Last { };", handler);
+			List<ClassDecl> classes = handler.getClasses();
+			assertEquals(3, classes.size());
+			assertEquals("First", classes.get(0).name);
+			assertEquals("Included", classes.get(1).name);
+			assertEquals("Last", classes.get(2).name);
+		}
+	}
+}
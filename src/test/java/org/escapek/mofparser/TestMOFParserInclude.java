@@ -0,0 +1,198 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.escapek.mofparser.helpers.SearchPathIncludeResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMOFParserInclude {
+	private File dir;
+	private MOFParser parser;
+	private SearchPathIncludeResolver resolver;
+
+	/**
+	 * Handler keeping errors instead of throwing them
+	 */
+	private static class ErrorHandler extends DefaultHandler {
+		List<MOFParserException> errors = new ArrayList<MOFParserException>();
+		List<String> includes = new ArrayList<String>();
+
+		public void error(MOFParserException ex) {
+			errors.add(ex);
+		}
+
+		public void include(String name) {
+			includes.add(name);
+		}
+	}
+
+	@Before public void setup() throws IOException {
+		dir = File.createTempFile("mofinclude", "");
+		dir.delete();
+		dir.mkdir();
+		new File(dir, "core").mkdir();
+		parser = new MOFParser();
+		resolver = new SearchPathIncludeResolver();
+		resolver.setCharset(Charset.forName("UTF-8"));
+		parser.setIncludeResolver(resolver);
+	}
+
+	@After public void cleanup() {
+		for(File f : new File(dir, "core").listFiles()) {
+			f.delete();
+		}
+		for(File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private File write(String name, String content) throws IOException {
+		File file = new File(dir, name);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write(content);
+		writer.close();
+		return file;
+	}
+
+	private List<String> classNames(DefaultHandler handler) {
+		List<String> names = new ArrayList<String>();
+		for(ClassDecl cDecl : handler.getClasses()) {
+			names.add(cDecl.name);
+		}
+		return names;
+	}
+
+	@Test public void testIncludeOrder() throws IOException, MOFParserException {
+		write("core/A.mof", "class Alpha { };");
+		write("core/B.mof", "#pragma include (\"A.mof\")\nclass Beta : Alpha { };");
+		File main = write("main.mof", "class First { };\n#pragma include (\"core\\\\B.mof\")\n" +
+				"#pragma include (\"core/A.mof\")\nclass Last { };");
+		ErrorHandler handler = new ErrorHandler();
+		parser.parse(main, Charset.forName("UTF-8"), handler);
+		assertEquals(0, handler.errors.size());
+		assertEquals("[First, Alpha, Beta, Last]", classNames(handler).toString());
+		assertEquals(3, handler.includes.size());
+	}
+
+	@Test public void testIncludeCycle() throws IOException, MOFParserException {
+		write("A.mof", "class Alpha { };\n#pragma include (\"B.mof\")");
+		write("B.mof", "class Beta { };\n#pragma include (\"A.mof\")");
+		ErrorHandler handler = new ErrorHandler();
+		parser.parse(new File(dir, "A.mof"), Charset.forName("UTF-8"), handler);
+		assertEquals("[Alpha, Beta]", classNames(handler).toString());
+		assertEquals(1, handler.errors.size());
+		assertEquals(MOFParserException.INCLUDE_CYCLE, handler.errors.get(0).getMessage());
+	}
+
+	@Test public void testSearchPath() throws IOException, MOFParserException {
+		write("core/A.mof", "class Alpha { };");
+		resolver.addDirectory(new File(dir, "core"));
+		ErrorHandler handler = new ErrorHandler();
+		parser.parse("#pragma include (\"A.mof\")\n#pragma include (\"Missing.mof\")", handler);
+		assertEquals("[Alpha]", classNames(handler).toString());
+		assertEquals(1, handler.errors.size());
+		assertEquals(MOFParserException.INCLUDE_NOT_FOUND, handler.errors.get(0).getMessage());
+		assertEquals("Missing.mof", handler.errors.get(0).getArg1());
+	}
+
+	@Test public void testClassPath() throws MOFParserException {
+		resolver.setClassLoader(getClass().getClassLoader());
+		DefaultHandler handler = new DefaultHandler();
+		parser.parse("#pragma include (\"org/escapek/mofparser/CIM_ManagedElement.mof\")", handler);
+		assertEquals(1, handler.getPragmas().size());
+		assertEquals(1, handler.getClasses().size());
+		assertTrue(handler.getClasses().get(0).name.equals("CIM_ManagedElement"));
+	}
+
+	@Test public void testIncludeDirectMode() throws IOException, MOFParserException {
+		write("A.mof", "class Alpha { };");
+		resolver.addDirectory(dir);
+		parser.setMode(ParseMode.DIRECT);
+		DefaultHandler handler = new DefaultHandler();
+		parser.parse("#pragma include (\"A.mof\") class Beta { };", handler);
+		assertEquals("[Alpha, Beta]", classNames(handler).toString());
+	}
+
+	@Test public void testIncludeCache() throws IOException, MOFParserException {
+		write("core/A.mof", "class Alpha { };");
+		write("core/B.mof", "#pragma include (\"A.mof\")\nclass Beta : Alpha { };");
+		File main = write("main.mof", "#pragma include (\"core/B.mof\")\nclass Last { };");
+		IncludeCache cache = new IncludeCache();
+		parser.setIncludeCache(cache);
+		DefaultHandler first = new DefaultHandler();
+		parser.parse(main, Charset.forName("UTF-8"), first);
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.size());
+		//Handlers may modify the declarations they receive
+		first.getClasses().get(0).name = "Changed";
+
+		ErrorHandler handler = new ErrorHandler();
+		parser.parse(main, Charset.forName("UTF-8"), handler);
+		assertEquals("[Alpha, Beta, Last]", classNames(handler).toString());
+		assertEquals(0, handler.errors.size());
+		assertEquals(2, handler.includes.size());
+		assertEquals(2, cache.getHits());
+		handler.getClasses().get(1).parentClass = "Changed";
+		handler = new ErrorHandler();
+		parser.parse(main, Charset.forName("UTF-8"), handler);
+		assertEquals("Alpha", handler.getClasses().get(1).parentClass);
+		assertEquals(4, cache.getHits());
+
+		//Modified content is parsed again
+		write("core/A.mof", "class Gamma { };");
+		handler = new ErrorHandler();
+		parser.parse(main, Charset.forName("UTF-8"), handler);
+		assertEquals("[Gamma, Beta, Last]", classNames(handler).toString());
+		assertEquals(5, cache.getHits());
+		assertEquals(3, cache.size());
+	}
+
+	@Test public void testIncludeCacheEviction() throws IOException, MOFParserException {
+		write("A.mof", "class Alpha { };");
+		write("B.mof", "class Beta { };");
+		resolver.addDirectory(dir);
+		IncludeCache cache = new IncludeCache(1);
+		parser.setIncludeCache(cache);
+		parser.parse("#pragma include (\"A.mof\")", new DefaultHandler());
+		parser.parse("#pragma include (\"B.mof\")", new DefaultHandler());
+		DefaultHandler handler = new DefaultHandler();
+		parser.parse("#pragma include (\"A.mof\")", handler);
+		assertEquals("[Alpha]", classNames(handler).toString());
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.size());
+	}
+}
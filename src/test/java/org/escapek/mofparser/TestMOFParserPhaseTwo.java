@@ -20,14 +20,22 @@ package org.escapek.mofparser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
 import org.escapek.mofparser.decl.PragmaDecl;
 import org.escapek.mofparser.decl.PropertyDecl;
 import org.escapek.mofparser.decl.Qualifier;
@@ -103,4 +111,119 @@ public class TestMOFParserPhaseTwo {
 		assertTrue(cDecl.properties.contains(new PropertyDecl("Caption")));
 		assertTrue(cDecl.properties.contains(new PropertyDecl("Description")));
 	}
+
+	@Test public void testParseManagedElementFromReader() throws IOException, MOFParserException {
+		InputStream is = this.getClass().getResourceAsStream("CIM_ManagedElement.mof" );
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.parse(new InputStreamReader(is), testHandler);
+		List<ClassDecl> classes = testHandler.getClasses();
+		assertEquals(1, classes.size());
+		ClassDecl cDecl = classes.get(0);
+		assertTrue(cDecl.name.equalsIgnoreCase("CIM_ManagedElement"));
+		assertTrue(cDecl.properties.contains(new PropertyDecl("Caption")));
+	}
+
+	@Test public void testParseManagedElementFromFile() throws IOException, MOFParserException, URISyntaxException {
+		File file = new File(this.getClass().getResource("CIM_ManagedElement.mof").toURI());
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.parse(file, testHandler);
+		List<ClassDecl> classes = testHandler.getClasses();
+		assertEquals(1, classes.size());
+		ClassDecl cDecl = classes.get(0);
+		assertTrue(cDecl.name.equalsIgnoreCase("CIM_ManagedElement"));
+		assertTrue(cDecl.properties.contains(new PropertyDecl("Description")));
+	}
+
+	@Test public void testParseManagedElementFastLexer() throws IOException, MOFParserException {
+		InputStream is = this.getClass().getResourceAsStream("CIM_ManagedElement.mof" );
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.setFastLexer(true);
+		parser.parse(is, testHandler);
+		List<ClassDecl> classes = testHandler.getClasses();
+		assertEquals(1, classes.size());
+		ClassDecl cDecl = classes.get(0);
+		assertTrue(cDecl.name.equalsIgnoreCase("CIM_ManagedElement"));
+		assertTrue(cDecl.qualifiers.contains(new Qualifier("Description")));
+		assertTrue(cDecl.properties.contains(new PropertyDecl("Caption")));
+	}
+
+	@Test public void testParseIncremental() throws IOException, MOFParserException {
+		InputStream is = this.getClass().getResourceAsStream("qualifiers.mof" );
+		DefaultHandler treeHandler = new DefaultHandler();
+		parser.parse(is, treeHandler);
+		is = this.getClass().getResourceAsStream("qualifiers.mof" );
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.setMode(ParseMode.INCREMENTAL);
+		parser.parse(is, testHandler);
+		assertEquals(treeHandler.getQualifiers().size(), testHandler.getQualifiers().size());
+		for(int i = 0; i < treeHandler.getQualifiers().size(); i++) {
+			assertEquals(treeHandler.getQualifiers().get(i).name, testHandler.getQualifiers().get(i).name);
+		}
+
+		is = this.getClass().getResourceAsStream("CIM_ManagedElement.mof" );
+		testHandler = new DefaultHandler();
+		parser.parse(is, testHandler);
+		List<ClassDecl> classes = testHandler.getClasses();
+		assertEquals(1, classes.size());
+		ClassDecl cDecl = classes.get(0);
+		assertTrue(cDecl.name.equalsIgnoreCase("CIM_ManagedElement"));
+		assertTrue(cDecl.properties.contains(new PropertyDecl("Caption")));
+	}
+
+	@Test public void testParseIncrementalInstances() throws MOFParserException {
+		String content = "#pragma locale (\"en_US\")\n" +
+			"instance of Test { Name = \"first\"; Caption = NULL; };\n" +
+			"instance of Test as $Second { Name = \"second\"; Caption = \"ab\"; };\n" +
+			"instance of Test { Name = NULL; };";
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.setMode(ParseMode.INCREMENTAL);
+		parser.parse(content, testHandler);
+		assertEquals(1, testHandler.getPragmas().size());
+		List<InstDecl> instances = testHandler.getInstances();
+		assertEquals(3, instances.size());
+		assertNull(instances.get(0).alias);
+		assertEquals("Second", instances.get(1).alias);
+		assertNull(instances.get(2).alias);
+		assertEquals("first", instances.get(0).getProperty("Name").value.get(0));
+		assertNull(instances.get(0).getProperty("Caption").value);
+		assertEquals("ab", instances.get(1).getProperty("Caption").value.get(0));
+		assertNull(instances.get(2).getProperty("Name").value);
+	}
+
+	@Test public void testParseIncrementalSingleProduction() throws MOFParserException {
+		String content = "#pragma locale (\"en_US\")";
+		DefaultHandler testHandler = new DefaultHandler();
+		parser.setMode(ParseMode.INCREMENTAL);
+		parser.parse(content, testHandler);
+		assertEquals(1, testHandler.getPragmas().size());
+	}
+
+	@Test public void testParseParallel() throws MOFParserException {
+		StringBuilder content = new StringBuilder("#pragma locale (\"en_US\")\n");
+		for(int i = 0; i < 5000; i++) {
+			content.append("instance of Test { Name = \"name;").append(i).append("\"; Id = ").append(i).append("; };\n");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			//Default mode first
+			for(ParseMode mode : new ParseMode[] { parser.getMode(), ParseMode.DIRECT }) {
+				parser.setMode(mode);
+				DefaultHandler testHandler = new DefaultHandler();
+				parser.parse(content.toString(), testHandler, executor);
+				assertEquals(1, testHandler.getPragmas().size());
+				assertEquals(5000, testHandler.getInstances().size());
+				for(int i = 0; i < 5000; i++) {
+					assertNull(testHandler.getInstances().get(i).alias);
+					for(InstancePropertyDecl prop : testHandler.getInstances().get(i).properties) {
+						if(prop.name.equals("Name")) {
+							assertEquals("name;" + i, prop.value.get(0));
+						}
+					}
+				}
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
 }
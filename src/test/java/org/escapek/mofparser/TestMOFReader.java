@@ -0,0 +1,116 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Test;
+
+public class TestMOFReader {
+
+	@Test public void testReadDeclarations() throws MOFParserException {
+		String content = "#pragma locale (\"en_US\")\n" +
+			"class Test { string Name; };\n" +
+			"instance of Test { Name = \"test\"; };";
+		MOFReader reader = new MOFParser().read(content);
+		assertTrue(reader.hasNext());
+		assertTrue(reader.hasNext());
+		PragmaDecl pDecl = (PragmaDecl)reader.next();
+		assertEquals(CompilerDirective.locale, pDecl.directive);
+		ClassDecl cDecl = (ClassDecl)reader.next();
+		assertEquals("Test", cDecl.name);
+		InstDecl iDecl = (InstDecl)reader.next();
+		assertEquals("Test", iDecl.className);
+		assertFalse(reader.hasNext());
+		try {
+			reader.next();
+			fail();
+		}
+		catch (NoSuchElementException e) {
+		}
+	}
+
+	@Test public void testReadQualifiers() throws IOException, MOFParserException {
+		InputStream is = this.getClass().getResourceAsStream("qualifiers.mof");
+		DefaultHandler handler = new DefaultHandler();
+		new MOFParser().parse(is, handler);
+		is = this.getClass().getResourceAsStream("qualifiers.mof");
+		MOFReader reader = new MOFParser().read(new InputStreamReader(is));
+		for(QualifierDecl expected : handler.getQualifiers()) {
+			QualifierDecl actual = (QualifierDecl)reader.next();
+			assertEquals(expected.name, actual.name);
+		}
+		assertFalse(reader.hasNext());
+		reader.close();
+	}
+
+	@Test public void testReadFile() throws IOException, MOFParserException, URISyntaxException {
+		File file = new File(this.getClass().getResource("CIM_ManagedElement.mof").toURI());
+		MOFReader reader = new MOFParser().read(file, Charset.forName("UTF-8"));
+		try {
+			ClassDecl cDecl = (ClassDecl)reader.next();
+			assertEquals("CIM_ManagedElement", cDecl.name);
+			assertFalse(reader.hasNext());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Test public void testInvalidProduction() throws MOFParserException {
+		MOFReader reader = new MOFParser().read("#pragma unknown (\"value\") class Test { };");
+		try {
+			reader.next();
+			fail();
+		}
+		catch (MOFParserException e) {
+			assertEquals(MOFParserException.INVALID_COMPILER_DIRECTIVE, e.getMessage());
+		}
+		ClassDecl cDecl = (ClassDecl)reader.next();
+		assertEquals("Test", cDecl.name);
+	}
+
+	@Test public void testSyntaxError() throws MOFParserException {
+		MOFReader reader = new MOFParser().read("class Test { string; };");
+		try {
+			reader.hasNext();
+			fail();
+		}
+		catch (MOFParserException e) {
+		}
+		assertFalse(reader.hasNext());
+	}
+}
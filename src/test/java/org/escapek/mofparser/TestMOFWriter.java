@@ -0,0 +1,249 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PragmaDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.escapek.mofparser.helpers.GenerateHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMOFWriter {
+	private MOFGenerator generator = MOFGenerator.getDefault();
+
+	@Test
+	public void testPragma() throws IOException {
+		PragmaDecl decl = new PragmaDecl(CompilerDirective.include, "test.mof");
+		StringBuilder out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+	}
+
+	@Test
+	public void testPragmaRoundTrip() throws IOException, MOFParserException {
+		DefaultHandler handler = new DefaultHandler();
+		MOFParser parser = new MOFParser();
+		parser.parse("#pragma include (\"C:\\\\dir\\\\x.mof\")", handler);
+		PragmaDecl decl = handler.getPragmas().get(0);
+		Assert.assertEquals("C:\\dir\\x.mof", decl.parameter);
+
+		StringBuilder out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+		DefaultHandler reparsed = new DefaultHandler();
+		parser.parse(out.toString(), reparsed);
+		Assert.assertEquals(decl.parameter, reparsed.getPragmas().get(0).parameter);
+	}
+
+	@Test
+	public void testQualifierDeclaration() throws IOException {
+		QualifierDecl decl = new QualifierDecl();
+		decl.name = "Test";
+		decl.type = new TypeDecl(DataType.BOOLEAN.toString());
+		StringBuilder out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+
+		decl.type.isArray = true;
+		decl.type.arraySize = 3;
+		decl.defaultValue.add("true");
+		decl.defaultValue.add("false");
+		decl.scopes.add(ScopeType.CLASS.toString());
+		decl.scopes.add(ScopeType.PROPERTY.toString());
+		decl.flavors.add(FlavorType.RESTRICTED.toString());
+		out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+	}
+
+	@Test
+	public void testClassDeclaration() throws IOException {
+		ClassDecl decl = new ClassDecl();
+		decl.name = "Test_Empty";
+		StringBuilder out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+
+		decl.parentClass = "CIM_ManagedElement";
+		Qualifier description = new Qualifier("Description");
+		description.value.add("A \"test\" class");
+		decl.qualifiers.add(description);
+		decl.qualifiers.add(new Qualifier("Abstract"));
+		PropertyDecl name = new PropertyDecl();
+		name.name = "Name";
+		name.type = new TypeDecl(DataType.STRING.toString());
+		decl.properties.add(name);
+		PropertyDecl count = new PropertyDecl();
+		count.name = "Count";
+		count.type = new TypeDecl(DataType.UINT32.toString());
+		count.qualifiers.add(new Qualifier("Key"));
+		count.qualifiers.add(description);
+		decl.properties.add(count);
+		out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+	}
+
+	@Test
+	public void testInstanceDeclaration() throws IOException {
+		InstDecl decl = new InstDecl();
+		decl.className = "Test";
+		StringBuilder out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+
+		decl.alias = "Disk";
+		InstancePropertyDecl name = new InstancePropertyDecl();
+		name.name = "Name";
+		name.value.add("C:\\");
+		decl.properties.add(name);
+		InstancePropertyDecl addresses = new InstancePropertyDecl();
+		addresses.name = "Addresses";
+		addresses.type.isArray = true;
+		addresses.value.add("1.2.3.4");
+		addresses.value.add("1.2.3.5");
+		decl.properties.add(addresses);
+		InstancePropertyDecl empty = new InstancePropertyDecl();
+		empty.name = "Empty";
+		decl.properties.add(empty);
+		out = new StringBuilder();
+		new MOFWriter(out).write(decl);
+		assertSame(generator.generateMOF(decl), out);
+	}
+
+	@Test
+	public void testParsedDeclarations() throws IOException, MOFParserException {
+		DefaultHandler handler = new DefaultHandler();
+		MOFParser parser = new MOFParser();
+		parser.parse(getClass().getResourceAsStream("CIM_ManagedElement.mof"), handler);
+		parser.parse(getClass().getResourceAsStream("qualifiers.mof"), handler);
+		Assert.assertFalse(handler.getClasses().isEmpty());
+		Assert.assertFalse(handler.getQualifiers().isEmpty());
+		for(ClassDecl decl : handler.getClasses()) {
+			StringBuilder out = new StringBuilder();
+			new MOFWriter(out).write(decl);
+			assertSame(generator.generateMOF(decl), out);
+		}
+		for(QualifierDecl decl : handler.getQualifiers()) {
+			StringBuilder out = new StringBuilder();
+			new MOFWriter(out).write(decl);
+			assertSame(generator.generateMOF(decl), out);
+		}
+	}
+
+	@Test
+	public void testChannel() throws IOException {
+		PragmaDecl decl = new PragmaDecl(CompilerDirective.include, "\u00e9t\u00e9.mof");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MOFWriter writer = new MOFWriter(Channels.newChannel(bytes), Charset.forName("UTF-8"));
+		writer.write(decl);
+		writer.flush();
+		StringWriter expected = new StringWriter();
+		MOFWriter stringWriter = new MOFWriter(expected);
+		stringWriter.write(decl);
+		stringWriter.flush();
+		Assert.assertEquals(expected.toString(), new String(bytes.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testQualifierValuesAsWritten() throws IOException, MOFParserException {
+		String mof = "[ValueMap {\"1\", \"2\"}, MaxLen (256), Description (\"ab\" \"cd\"), Fixed (false), Key (), " +
+				"Units (\"s\")]\n" +
+				"class Alpha {\n\t[Values {\"xy\"}, Read ()]\nstring Prop;\n};";
+		for(ParseMode mode : ParseMode.values()) {
+			MOFParser parser = new MOFParser();
+			parser.setMode(mode);
+			DefaultHandler handler = new DefaultHandler();
+			parser.parse(mof, handler);
+			ClassDecl decl = handler.getClasses().get(0);
+			Assert.assertEquals(DataType.CHAR16.toString(), decl.getQualifier("Units").valueType.name);
+			Assert.assertEquals(DataType.SINT64.toString(), decl.getQualifier("MaxLen").valueType.name);
+			StringBuilder out = new StringBuilder();
+			new MOFWriter(out).write(decl);
+			Assert.assertTrue(out.toString(), out.toString().contains(
+					"[ValueMap {\"1\", \"2\"}, MaxLen (256), Description (\"abcd\"), Fixed (false), Key (), " +
+					"Units (\"s\")]\n"));
+			Assert.assertTrue(out.toString(), out.toString().contains("[Values {\"xy\"}, Read ()]\n"));
+			assertSame(generator.generateMOF(decl), out);
+
+			//Generated MOF is parsed again to the same values. Class templates don't end with a semicolon
+			handler = new DefaultHandler();
+			parser.parse(out.toString() + ";", handler);
+			StringBuilder again = new StringBuilder();
+			new MOFWriter(again).write(handler.getClasses().get(0));
+			Assert.assertEquals(withoutDate(out.toString()), withoutDate(again.toString()));
+		}
+	}
+
+	@Test
+	public void testGenerateHandler() throws IOException, MOFParserException {
+		MOFParser parser = new MOFParser();
+		StringWriter out = new StringWriter();
+		parser.parse("#pragma include (\"test.mof\")", new GenerateHandler(out));
+		StringBuilder expected = new StringBuilder();
+		new MOFWriter(expected).write(new PragmaDecl(CompilerDirective.include, "test.mof"));
+		Assert.assertEquals(withoutDate(expected.toString()), withoutDate(out.toString()));
+
+		Writer failing = new Writer() {
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException("Disk full");
+			}
+
+			public void flush() throws IOException {
+				throw new IOException("Disk full");
+			}
+
+			public void close() {
+			}
+		};
+		try {
+			parser.parse("#pragma include (\"test.mof\")", new GenerateHandler(failing));
+			Assert.fail();
+		}
+		catch (MOFParserException e) {
+			Assert.assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	/**
+	 * Compare generated MOF with written MOF, ignoring generation dates. 
+	 */
+	private static void assertSame(String generated, CharSequence written) {
+		Assert.assertEquals(withoutDate(generated + "\n"), withoutDate(written.toString()));
+	}
+
+	private static String withoutDate(String mof) {
+		return mof.replaceAll("//Date : [^\n]*", "//Date : ");
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.escapek.mofparser.helpers.SearchPathIncludeResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestParseCache {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private File dir;
+	private ParseCache cache;
+	private MOFParser parser;
+
+	@Before public void setup() throws IOException {
+		dir = File.createTempFile("mofcache", "");
+		dir.delete();
+		dir.mkdir();
+		cache = new ParseCache(new File(dir, "cache"));
+		parser = new MOFParser();
+		parser.setParseCache(cache);
+	}
+
+	@After public void cleanup() {
+		for(File f : cache.getDirectory().listFiles()) {
+			f.delete();
+		}
+		for(File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private File write(String name, String content, long lastModified) throws IOException {
+		File file = new File(dir, name);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write(content);
+		writer.close();
+		file.setLastModified(lastModified);
+		return file;
+	}
+
+	private String classNames(File file) throws IOException, MOFParserException {
+		DefaultHandler handler = new DefaultHandler();
+		parser.parse(file, UTF8, handler);
+		List<String> names = new ArrayList<String>();
+		for(ClassDecl cDecl : handler.getClasses()) {
+			names.add(cDecl.name);
+		}
+		return names.toString();
+	}
+
+	@Test public void testFingerprint() throws IOException, MOFParserException {
+		File file = write("A.mof", "class Alpha { };", 1000000000000L);
+		assertEquals("[Alpha]", classNames(file));
+		assertEquals(0, cache.getHits());
+		assertEquals("[Alpha]", classNames(file));
+		assertEquals(1, cache.getHits());
+
+		//Same content, new modification time
+		write("A.mof", "class Alpha { };", 1000000002000L);
+		assertEquals("[Alpha]", classNames(file));
+		assertEquals(2, cache.getHits());
+
+		//Same size, new content
+		write("A.mof", "class Gamma { };", 1000000004000L);
+		assertEquals("[Gamma]", classNames(file));
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+
+		//Other parsers share the cache directory
+		MOFParser other = new MOFParser();
+		ParseCache otherCache = new ParseCache(cache.getDirectory());
+		other.setParseCache(otherCache);
+		other.parse(file, UTF8, new DefaultHandler());
+		assertEquals(1, otherCache.getHits());
+		assertEquals(1, cache.getDirectory().listFiles().length);
+	}
+
+	@Test public void testIncludesResolvedAgain() throws IOException, MOFParserException {
+		SearchPathIncludeResolver resolver = new SearchPathIncludeResolver();
+		resolver.setCharset(UTF8);
+		parser.setIncludeResolver(resolver);
+		File main = write("main.mof", "#pragma include (\"A.mof\")\nclass Beta { };", 1000000000000L);
+		write("A.mof", "class Alpha { };", 1000000000000L);
+		assertEquals("[Alpha, Beta]", classNames(main));
+		write("A.mof", "class Gamma { };", 1000000002000L);
+		assertEquals("[Gamma, Beta]", classNames(main));
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test public void testUnwritableCache() throws IOException, MOFParserException {
+		File file = write("A.mof", "class Alpha { };", 1000000000000L);
+		File broken = new File(dir, "broken");
+		ParseCache brokenCache = new ParseCache(broken);
+		broken.delete();
+		parser.setParseCache(brokenCache);
+		assertEquals("[Alpha]", classNames(file));
+		assertEquals("[Alpha]", classNames(file));
+		assertEquals(0, brokenCache.getHits());
+		assertEquals(2, brokenCache.getMisses());
+		assertFalse(broken.exists());
+	}
+
+	@Test public void testErrorsNotCached() throws IOException, MOFParserException {
+		File file = write("A.mof", "#pragma unknown (\"value\")", 1000000000000L);
+		for(int i = 0; i < 2; i++) {
+			try {
+				parser.parse(file, UTF8, new DefaultHandler());
+				fail();
+			}
+			catch (MOFParserException e) {
+				assertEquals(MOFParserException.INVALID_COMPILER_DIRECTIVE, e.getMessage());
+			}
+		}
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getDirectory().listFiles().length);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.FoldedName;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Test;
+
+public class TestSymbolTable {
+
+	@Test public void testIntern() {
+		SymbolTable table = new SymbolTable();
+		String name = table.intern(new String("Description"));
+		assertSame(name, table.intern(new String("Description")));
+		assertSame(name, table.intern("description"));
+		assertSame(table.symbol("DESCRIPTION"), table.symbol("Description"));
+		assertEquals(FoldedName.foldedHash("Description"), FoldedName.foldedHash("DESCRIPTION"));
+		assertEquals(FoldedName.foldedHash("Description"), table.symbol("description").hash);
+		assertNull(table.intern(null));
+		for(int i = 0; i < 10000; i++) {
+			table.intern("Name" + i);
+		}
+		assertEquals(10001, table.size());
+		assertSame(name, table.intern(new String("Description")));
+	}
+
+	@Test public void testInternQualifier() {
+		SymbolTable table = new SymbolTable(true);
+		Qualifier key = new Qualifier("Key");
+		Qualifier shared = table.internQualifier(key);
+		assertSame(shared, table.internQualifier(new Qualifier("Key")));
+		Qualifier override = new Qualifier("Override");
+		override.value.add("Name");
+		override.flavors.add(FlavorType.RESTRICTED.toString());
+		shared = table.internQualifier(override);
+		assertNotSame(override, shared);
+		assertEquals(override.value, shared.value);
+		assertEquals(override.flavors, shared.flavors);
+		assertSame(shared, table.internQualifier(override));
+		Qualifier other = new Qualifier("OVERRIDE");
+		other.value.add("Name");
+		assertNotSame(shared, table.internQualifier(other));
+		other.flavors.add(FlavorType.RESTRICTED.toString());
+		assertSame(shared, table.internQualifier(other));
+		try {
+			shared.value.add("Caption");
+			fail();
+		}
+		catch (UnsupportedOperationException e) {
+		}
+
+		Qualifier description = new Qualifier("Description");
+		description.value.add("A description which is long enough to be unique in the whole schema.");
+		assertSame(description, table.internQualifier(description));
+	}
+
+	@Test public void testBoundedSize() {
+		SymbolTable table = new SymbolTable(160, true);
+		for(int i = 0; i < 10000; i++) {
+			table.intern("Name" + i);
+			Qualifier qualifier = new Qualifier("MaxLen");
+			qualifier.value.add(Integer.toString(i));
+			table.internQualifier(qualifier);
+		}
+		assertTrue(table.size() <= 160);
+		String name = new String("Other");
+		assertSame(name, table.intern(name));
+		Qualifier qualifier = new Qualifier("Other");
+		assertSame(qualifier, table.internQualifier(qualifier));
+	}
+
+	@Test public void testParserWithoutTable() throws MOFParserException {
+		assertNull(new MOFParser().getSymbolTable());
+		assertNull(new MOFParserFactory().newParser().getSymbolTable());
+	}
+
+	@Test public void testDeclarationsNotSharedByDefault() {
+		SymbolTable table = new SymbolTable();
+		Qualifier key = new Qualifier("Key");
+		assertSame(key, table.internQualifier(key));
+		assertNotSame(table.type(DataType.STRING, false, 0), table.type(DataType.STRING, false, 0));
+		SymbolTable shared = new SymbolTable(true);
+		assertSame(shared.type(DataType.STRING, false, 0), shared.type(DataType.STRING, false, 0));
+		assertNotSame(shared.type(DataType.STRING, true, 4), shared.type(DataType.STRING, true, 4));
+	}
+
+	private void assertSharedNames(ParseMode mode) throws MOFParserException {
+		MOFParser parser = new MOFParser();
+		parser.setMode(mode);
+		parser.setSymbolTable(new SymbolTable(true));
+		DefaultHandler handler = new DefaultHandler();
+		parser.parse("[Abstract] class Alpha { [Key] string InstanceID; };\n" +
+				"[abstract] class Beta : ALPHA { [key] string instanceId; [Read] alpha REF Other; };", handler);
+		List<ClassDecl> classes = handler.getClasses();
+		assertSame(classes.get(0).name, classes.get(1).parentClass);
+		assertSame(classes.get(0).qualifiers.iterator().next(), classes.get(1).qualifiers.iterator().next());
+		PropertyDecl first = classes.get(0).properties.iterator().next();
+		for(PropertyDecl property : classes.get(1).properties) {
+			if(property.name.equals("InstanceID")) {
+				assertSame(first.name, property.name);
+				assertEquals(FoldedName.foldedHash("InstanceID"), property.hashCode());
+				assertSame(first.qualifiers.iterator().next(), property.qualifiers.iterator().next());
+				assertSame(first.type, property.type);
+			}
+			else {
+				assertSame(classes.get(0).name, property.type.refClass);
+			}
+		}
+	}
+
+	@Test public void testParserSharesNames() throws MOFParserException {
+		assertSharedNames(ParseMode.TREE);
+		assertSharedNames(ParseMode.DIRECT);
+	}
+}
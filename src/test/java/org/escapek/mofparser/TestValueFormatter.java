@@ -0,0 +1,102 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.escapek.mofparser.decl.TypeDecl;
+import org.escapek.mofparser.decl.Values;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestValueFormatter {
+	private ValueFormatter formatter = new ValueFormatter();
+
+	@Test
+	public void testScalars() {
+		Assert.assertEquals("\"a\\\"b\"", format(DataType.STRING, false, "a\"b"));
+		Assert.assertEquals("\"20081201000000.000000+000\"", 
+				format(DataType.DATETIME, false, "20081201000000.000000+000"));
+		Assert.assertEquals("\"x\"", format(DataType.CHAR16, false, "x"));
+		Assert.assertEquals("\"'\"", format(DataType.CHAR16, false, "'"));
+		Assert.assertEquals("\"\\n\"", format(DataType.CHAR16, false, "\n"));
+		Assert.assertEquals("-12", format(DataType.SINT32, false, "-12"));
+		Assert.assertEquals("1.5", format(DataType.REAL64, false, "1.5"));
+		Assert.assertEquals("true", format(DataType.BOOLEAN, false, "true"));
+	}
+
+	@Test
+	public void testArrays() {
+		Assert.assertEquals("{\"a\", \"b\"}", format(DataType.STRING, true, "a", "b"));
+		Assert.assertEquals("{1, 2, 3}", format(DataType.UINT8, true, "1", "2", "3"));
+		Assert.assertEquals("{\"a\", null}", format(DataType.STRING, true, "a", null));
+	}
+
+	@Test
+	public void testDataTypeNames() {
+		Assert.assertSame(DataType.SINT32, DataType.forName("SINT32"));
+		Assert.assertSame(DataType.SINT32, DataType.forName("sint32"));
+		Assert.assertSame(DataType.SINT32, DataType.forName("Sint32"));
+		Assert.assertNull(DataType.forName("int"));
+		Assert.assertNull(DataType.forName(null));
+		Assert.assertEquals("12", formatter.format(Arrays.asList("12"), new TypeDecl("uint8")));
+	}
+
+	@Test
+	public void testReferences() {
+		TypeDecl type = new TypeDecl(DataType.REFERENCE.toString());
+		type.isRef = true;
+		type.refClass = "CIM_ManagedElement";
+		List<String> values = Arrays.asList("CIM_ManagedElement.Name=\"x\"");
+		Assert.assertEquals("\"CIM_ManagedElement.Name=\\\"x\\\"\"", formatter.format(values, type));
+	}
+
+	@Test
+	public void testUntyped() {
+		Assert.assertEquals("null", formatter.format(null, null));
+		Assert.assertEquals("\"ab\"", formatter.format(Arrays.asList("a", "b"), null));
+		Assert.assertEquals("\"x\"", formatter.format(Arrays.asList("x"), new TypeDecl("unknown")));
+	}
+
+	@Test
+	public void testTypedValues() {
+		TypeDecl type = new TypeDecl(DataType.SINT64.toString());
+		type.isArray = true;
+		List<String> values = Values.of(type, Arrays.asList("1", "-2"));
+		Assert.assertEquals("{1, -2}", formatter.format(values, type));
+	}
+
+	@Test
+	public void testUnmodifiedValues() {
+		TypeDecl type = new TypeDecl(DataType.STRING.toString());
+		type.isArray = true;
+		List<String> values = Collections.unmodifiableList(Arrays.asList("a\\b", "\"c\""));
+		Assert.assertEquals("{\"a\\\\b\", \"\\\"c\\\"\"}", formatter.format(values, type));
+		Assert.assertEquals("a\\b", values.get(0));
+		Assert.assertEquals("\"c\"", values.get(1));
+	}
+
+	private String format(DataType dataType, boolean isArray, String... values) {
+		TypeDecl type = new TypeDecl(dataType.toString());
+		type.isArray = isArray;
+		return formatter.format(Arrays.asList(values), type);
+	}
+}
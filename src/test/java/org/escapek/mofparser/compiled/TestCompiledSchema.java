@@ -0,0 +1,183 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.compiled;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import org.escapek.mofparser.CompilerDirective;
+import org.escapek.mofparser.IContentHandler;
+import org.escapek.mofparser.MOFParser;
+import org.escapek.mofparser.Production;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.decl.InstDecl;
+import org.escapek.mofparser.decl.InstancePropertyDecl;
+import org.escapek.mofparser.decl.PropertyDecl;
+import org.escapek.mofparser.decl.Qualifier;
+import org.escapek.mofparser.decl.QualifierDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Test;
+
+public class TestCompiledSchema {
+	private static final String INSTANCE = "#pragma namespace (\"root/cimv2\")\n" +
+			"instance of CIM_ManagedElement as $Element { Caption = \"Element caption\"; };";
+
+	private void parse(String resource, MOFParser parser, IContentHandler handler) throws IOException, MOFParserException {
+		InputStream is = this.getClass().getResourceAsStream(resource);
+		try {
+			parser.parse(is, handler);
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	private <T extends IContentHandler> T parseAll(T handler) throws IOException, MOFParserException {
+		MOFParser parser = new MOFParser();
+		parse("/org/escapek/mofparser/qualifiers.mof", parser, handler);
+		parse("/org/escapek/mofparser/CIM_ManagedElement.mof", parser, handler);
+		parser.parse(INSTANCE, handler);
+		return handler;
+	}
+
+	private byte[] compile() throws IOException, MOFParserException {
+		CompiledSchemaWriter writer = new CompiledSchemaWriter();
+		parseAll(writer);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.write(out);
+		return out.toByteArray();
+	}
+
+	private void assertQualifiersEquals(Set<Qualifier> expected, Set<Qualifier> actual) {
+		assertEquals(expected.size(), actual.size());
+		for(Qualifier e : expected) {
+			Qualifier a = null;
+			for(Qualifier q : actual) {
+				if(q.name.equals(e.name)) {
+					a = q;
+				}
+			}
+			assertEquals(e.value, a.value);
+			assertEquals(e.flavors, a.flavors);
+			assertEquals(e.valueType == null, a.valueType == null);
+			if(e.valueType != null) {
+				assertEquals(e.valueType.name, a.valueType.name);
+				assertEquals(e.valueType.isArray, a.valueType.isArray);
+			}
+		}
+	}
+
+	@Test public void testReplay() throws IOException, MOFParserException {
+		DefaultHandler expected = parseAll(new DefaultHandler());
+		CompiledSchema schema = new CompiledSchema(ByteBuffer.wrap(compile()));
+		DefaultHandler actual = new DefaultHandler();
+		schema.replay(actual);
+
+		assertEquals(expected.getPragmas().size(), actual.getPragmas().size());
+		assertEquals(CompilerDirective.namespace, actual.getPragmas().get(0).directive);
+		assertEquals("root/cimv2", actual.getPragmas().get(0).parameter);
+
+		assertTrue(expected.getQualifiers().size() > 0);
+		assertEquals(expected.getQualifiers().size(), actual.getQualifiers().size());
+		for(int i = 0; i < expected.getQualifiers().size(); i++) {
+			QualifierDecl e = expected.getQualifiers().get(i);
+			QualifierDecl a = actual.getQualifiers().get(i);
+			assertEquals(e.name, a.name);
+			assertEquals(e.type.name, a.type.name);
+			assertEquals(e.type.isArray, a.type.isArray);
+			assertEquals(e.defaultValue, a.defaultValue);
+			assertEquals(e.scopes, a.scopes);
+			assertEquals(e.flavors, a.flavors);
+		}
+
+		ClassDecl eClass = expected.getClasses().get(0);
+		ClassDecl aClass = actual.getClasses().get(0);
+		assertEquals(eClass.name, aClass.name);
+		assertEquals(eClass.parentClass, aClass.parentClass);
+		assertQualifiersEquals(eClass.qualifiers, aClass.qualifiers);
+		assertEquals(eClass.properties.size(), aClass.properties.size());
+		for(PropertyDecl e : eClass.properties) {
+			PropertyDecl a = null;
+			for(PropertyDecl p : aClass.properties) {
+				if(p.name.equals(e.name)) {
+					a = p;
+				}
+			}
+			assertEquals(e.type.name, a.type.name);
+			assertEquals(e.value, a.value);
+			assertQualifiersEquals(e.qualifiers, a.qualifiers);
+		}
+
+		InstDecl instance = actual.getInstances().get(0);
+		assertEquals("CIM_ManagedElement", instance.className);
+		assertEquals("Element", instance.alias);
+		InstancePropertyDecl property = instance.properties.iterator().next();
+		assertEquals("Caption", property.name);
+		assertEquals("Element caption", property.value.get(0));
+	}
+
+	@Test public void testLazyAccess() throws IOException, MOFParserException {
+		File file = File.createTempFile("schema", ".mofc");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(compile());
+			out.close();
+			CompiledSchema schema = CompiledSchema.open(file);
+			int last = schema.size() - 1;
+			assertEquals(Production.instanceDeclaration, schema.getProduction(last));
+			assertEquals("CIM_ManagedElement", schema.getName(last));
+			assertEquals("Element", ((InstDecl) schema.get(last)).alias);
+			ClassDecl cDecl = schema.getClass("cim_managedelement");
+			assertEquals("CIM_ManagedElement", cDecl.name);
+			assertNull(schema.getClass("CIM_Missing"));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test public void testInvalidContent() throws IOException, MOFParserException {
+		byte[] content = compile();
+		content[content.length - 1] ^= 1;
+		try {
+			new CompiledSchema(ByteBuffer.wrap(content));
+			fail();
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage().indexOf("checksum") >= 0);
+		}
+		try {
+			new CompiledSchema(ByteBuffer.wrap("class Alpha { };".getBytes("UTF-8")));
+			fail();
+		}
+		catch (IOException e) {
+		}
+	}
+}
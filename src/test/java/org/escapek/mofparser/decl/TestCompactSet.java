@@ -0,0 +1,116 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.escapek.mofparser.FlavorType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompactSet {
+	@Test
+	public void testInsertionOrder() {
+		CompactSet<String> set = new CompactSet<String>();
+		for(String s : Arrays.asList("Name", "Caption", "Description", "InstanceID", "ElementName", "Caption")) {
+			set.add(s);
+		}
+		Assert.assertEquals(5, set.size());
+		Assert.assertEquals("[Name, Caption, Description, InstanceID, ElementName]", set.toString());
+		Assert.assertEquals("Description", set.get(2));
+		Assert.assertTrue(set.remove("Caption"));
+		Assert.assertFalse(set.contains("Caption"));
+		Iterator<String> it = set.iterator();
+		it.next();
+		it.next();
+		it.remove();
+		Assert.assertEquals("[Name, InstanceID, ElementName]", set.toString());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("ElementName", "Name", "InstanceID")), set);
+	}
+
+	@Test
+	public void testDeclarationOrder() {
+		ClassDecl decl = new ClassDecl();
+		for(String name : Arrays.asList("Zeta", "Alpha", "Mu")) {
+			decl.properties.add(new PropertyDecl(name));
+		}
+		decl.properties.add(new PropertyDecl("ALPHA"));
+		Iterator<PropertyDecl> it = decl.properties.iterator();
+		Assert.assertEquals("Zeta", it.next().name);
+		Assert.assertEquals("Alpha", it.next().name);
+		Assert.assertEquals("Mu", it.next().name);
+		Assert.assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testFlavorSet() {
+		FlavorSet flavors = new FlavorSet();
+		flavors.add(FlavorType.TOSUBCLASS.toString());
+		flavors.add(FlavorType.ENABLEOVERRIDE);
+		Assert.assertTrue(flavors.contains(FlavorType.TOSUBCLASS));
+		Assert.assertTrue(flavors.contains("ENABLEOVERRIDE"));
+		Assert.assertFalse(flavors.contains("RESTRICTED"));
+		Assert.assertEquals("[ENABLEOVERRIDE, TOSUBCLASS]", flavors.toString());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("TOSUBCLASS", "ENABLEOVERRIDE")), flavors);
+		Assert.assertEquals(2, flavors.toEnumSet().size());
+		Assert.assertTrue(flavors.remove("TOSUBCLASS"));
+		Assert.assertEquals(1, flavors.size());
+		try {
+			flavors.add("Unknown");
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void testNamedLookup() {
+		ClassDecl decl = new ClassDecl();
+		for(int i = 0; i < 100; i++) {
+			decl.properties.add(new PropertyDecl("Property" + i));
+		}
+		Assert.assertEquals(100, decl.properties.size());
+		Assert.assertFalse(decl.properties.add(new PropertyDecl("PROPERTY42")));
+		Assert.assertTrue(decl.properties.contains(new PropertyDecl("property42")));
+		Assert.assertEquals("Property42", decl.getProperty("pRoPeRtY42").name);
+		Assert.assertNull(decl.getProperty("Property100"));
+		Assert.assertTrue(decl.properties.remove(new PropertyDecl("Property0")));
+		Assert.assertNull(decl.getProperty("Property0"));
+		Assert.assertEquals("Property99", decl.getProperty("property99").name);
+		Assert.assertEquals(new PropertyDecl("Name").hashCode(), new PropertyDecl("NAME").hashCode());
+
+		decl.qualifiers.add(new Qualifier("Abstract"));
+		Assert.assertEquals("Abstract", decl.getQualifier("ABSTRACT").name);
+		decl.qualifiers = new HashSet<Qualifier>(decl.qualifiers);
+		Assert.assertEquals("Abstract", decl.getQualifier("abstract").name);
+
+		//Instance properties with the same name are kept, the first one is returned
+		InstDecl instance = new InstDecl();
+		for(int i = 0; i < 20; i++) {
+			InstancePropertyDecl property = new InstancePropertyDecl();
+			property.name = "Property" + (i % 10);
+			property.value.add(Integer.toString(i));
+			instance.properties.add(property);
+		}
+		Assert.assertEquals(20, instance.properties.size());
+		Assert.assertEquals("3", instance.getProperty("PROPERTY3").value.get(0));
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.decl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.escapek.mofparser.DataType;
+import org.escapek.mofparser.MOFParser;
+import org.escapek.mofparser.ParseMode;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestValues {
+	@Test
+	public void testTypedValues() {
+		List<String> strings = Arrays.asList("1", "-42", "9223372036854775807");
+		List<String> values = Values.of(DataType.SINT64, strings);
+		Assert.assertTrue(values instanceof LongValues);
+		Assert.assertEquals(strings, values);
+		Assert.assertEquals(-42L, ((LongValues) values).getLong(1));
+
+		values = Values.of(DataType.REAL64, Arrays.asList("1.5", "-2.0E-5"));
+		Assert.assertTrue(values instanceof DoubleValues);
+		Assert.assertEquals(1.5, ((DoubleValues) values).getDouble(0), 0);
+
+		values = Values.of(DataType.BOOLEAN, Arrays.asList("TRUE", "FALSE", "TRUE"));
+		Assert.assertTrue(values instanceof BooleanValues);
+		Assert.assertEquals(Arrays.asList("TRUE", "FALSE", "TRUE"), values);
+		Assert.assertFalse(((BooleanValues) values).getBoolean(1));
+
+		//Values which would be written differently are kept as strings
+		strings = Arrays.asList("0x1F", "12");
+		Assert.assertSame(strings, Values.of(DataType.UINT8, strings));
+		strings = Arrays.asList("007");
+		Assert.assertSame(strings, Values.of(DataType.UINT8, strings));
+		strings = Arrays.asList("18446744073709551615");
+		Assert.assertSame(strings, Values.of(DataType.UINT64, strings));
+		strings = Arrays.asList("true", "FALSE");
+		Assert.assertSame(strings, Values.of(DataType.BOOLEAN, strings));
+		strings = Arrays.asList("12");
+		Assert.assertSame(strings, Values.of(DataType.STRING, strings));
+		Assert.assertNull(Values.of(DataType.UINT8, null));
+	}
+
+	@Test
+	public void testParsedValues() throws MOFParserException {
+		for(ParseMode mode : ParseMode.values()) {
+			MOFParser parser = new MOFParser();
+			parser.setMode(mode);
+			DefaultHandler handler = new DefaultHandler();
+			parser.parse("class Alpha { [Key] uint32 Count = 42; [Read] boolean Enabled = true; " +
+					"[Read] string Label = \"42\"; };", handler);
+			ClassDecl decl = handler.getClasses().get(0);
+			Assert.assertEquals(42L, ((LongValues) decl.getProperty("Count").value).getLong(0));
+			Assert.assertTrue(((BooleanValues) decl.getProperty("Enabled").value).getBoolean(0));
+			Assert.assertEquals(new ArrayList<String>(Arrays.asList("42")), decl.getProperty("Label").value);
+			Assert.assertFalse(decl.getProperty("Label").value instanceof LongValues);
+		}
+	}
+}
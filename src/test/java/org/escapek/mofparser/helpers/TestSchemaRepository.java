@@ -0,0 +1,123 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.escapek.mofparser.MOFParser;
+import org.escapek.mofparser.decl.ClassDecl;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSchemaRepository {
+	private static final String SCHEMA = 
+		"class CIM_ManagedElement { };\n" +
+		"class CIM_ManagedSystemElement : CIM_ManagedElement { };\n" +
+		"class CIM_LogicalElement : CIM_ManagedSystemElement { };\n" +
+		"class CIM_LogicalDevice : CIM_LogicalElement { };\n" +
+		"class CIM_DiskDrive : CIM_LogicalDevice { };\n" +
+		"class CIM_Processor : CIM_LogicalDevice { };\n" +
+		"class CIM_PhysicalElement : CIM_ManagedSystemElement { };\n" +
+		"class Orphan_Class : Missing_Parent { };\n";
+
+	private SchemaRepository repository;
+
+	@Before
+	public void setup() throws MOFParserException {
+		repository = new SchemaRepository();
+		new MOFParser().parse(SCHEMA, repository);
+	}
+
+	@Test
+	public void testLookup() {
+		Assert.assertEquals(8, repository.size());
+		Assert.assertEquals("CIM_LogicalDevice", repository.getClass("cim_logicaldevice").name);
+		Assert.assertNull(repository.getClass("CIM_Unknown"));
+		Assert.assertEquals("CIM_LogicalElement", repository.getParent("CIM_LOGICALDEVICE").name);
+		Assert.assertNull(repository.getParent("CIM_ManagedElement"));
+		Assert.assertNull(repository.getParent("Orphan_Class"));
+	}
+
+	@Test
+	public void testHierarchy() {
+		Assert.assertEquals(names("CIM_LogicalElement", "CIM_PhysicalElement"), 
+				names(repository.getChildren("CIM_ManagedSystemElement")));
+		Assert.assertEquals(names("CIM_DiskDrive", "CIM_Processor"), 
+				names(repository.getSubclasses("CIM_LogicalDevice")));
+		Assert.assertEquals(names("CIM_ManagedSystemElement", "CIM_LogicalElement", "CIM_LogicalDevice", 
+				"CIM_DiskDrive", "CIM_Processor", "CIM_PhysicalElement"), 
+				names(repository.getSubclasses("CIM_ManagedElement")));
+		Assert.assertEquals(names("CIM_LogicalDevice", "CIM_LogicalElement", "CIM_ManagedSystemElement", 
+				"CIM_ManagedElement"), names(repository.getAncestors("CIM_Processor")));
+		Assert.assertEquals(names("CIM_ManagedElement", "Orphan_Class"), names(repository.getRootClasses()));
+		Assert.assertEquals(4, repository.getDepth("CIM_DiskDrive"));
+		Assert.assertEquals(0, repository.getDepth("CIM_ManagedElement"));
+		Assert.assertEquals(-1, repository.getDepth("CIM_Unknown"));
+		Assert.assertTrue(repository.getSubclasses("CIM_Unknown").isEmpty());
+	}
+
+	@Test
+	public void testSubtype() {
+		Assert.assertTrue(repository.isSubtypeOf("CIM_DiskDrive", "CIM_LogicalDevice"));
+		Assert.assertTrue(repository.isSubtypeOf("CIM_DiskDrive", "cim_managedelement"));
+		Assert.assertTrue(repository.isSubtypeOf("CIM_DiskDrive", "CIM_DiskDrive"));
+		Assert.assertFalse(repository.isSubtypeOf("CIM_LogicalDevice", "CIM_DiskDrive"));
+		Assert.assertFalse(repository.isSubtypeOf("CIM_DiskDrive", "CIM_PhysicalElement"));
+		Assert.assertFalse(repository.isSubtypeOf("Orphan_Class", "CIM_ManagedElement"));
+		Assert.assertFalse(repository.isSubtypeOf("CIM_DiskDrive", "CIM_Unknown"));
+	}
+
+	@Test
+	public void testIndexUpdate() throws MOFParserException {
+		Assert.assertNull(repository.getClass("Missing_Parent"));
+		new MOFParser().parse("class Missing_Parent : CIM_ManagedElement { };", repository);
+		Assert.assertEquals(9, repository.size());
+		Assert.assertTrue(repository.isSubtypeOf("Orphan_Class", "CIM_ManagedElement"));
+		Assert.assertEquals(2, repository.getDepth("Orphan_Class"));
+	}
+
+	@Test
+	public void testInheritanceCycle() throws MOFParserException {
+		SchemaRepository cycle = new SchemaRepository();
+		new MOFParser().parse("class Cycle_A : Cycle_B { };\nclass Cycle_B : Cycle_A { };", cycle);
+		Assert.assertEquals(names("Cycle_A"), names(cycle.getRootClasses()));
+		Assert.assertTrue(cycle.isSubtypeOf("Cycle_B", "Cycle_A"));
+		Assert.assertFalse(cycle.isSubtypeOf("Cycle_A", "Cycle_B"));
+		Assert.assertTrue(cycle.getChildren("Cycle_B").isEmpty());
+	}
+
+	private static List<String> names(String... names) {
+		List<String> list = new ArrayList<String>();
+		for(String name : names) {
+			list.add(name);
+		}
+		return list;
+	}
+
+	private static List<String> names(List<ClassDecl> classes) {
+		List<String> list = new ArrayList<String>();
+		for(ClassDecl decl : classes) {
+			list.add(decl.name);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCaseFolding {
+	@Test
+	public void testSameAsCharacter() {
+		for(int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+			Assert.assertEquals(Character.toLowerCase((char)c), CaseFolding.toLowerCase((char)c));
+		}
+	}
+}
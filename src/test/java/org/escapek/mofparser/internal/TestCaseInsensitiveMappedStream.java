@@ -0,0 +1,81 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCaseInsensitiveMappedStream {
+	private String readAll(File file, Charset charset) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			CaseInsensitiveMappedStream stream = new CaseInsensitiveMappedStream(in.getChannel(), charset, 4);
+			int start = stream.index();
+			while(stream.LA(1) != CaseInsensitiveMappedStream.EOF) {
+				stream.consume();
+			}
+			return stream.substring(start, stream.index() - 1);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private File write(String content, Charset charset) throws IOException {
+		File file = File.createTempFile("mofparser", ".mof");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes(charset.name()));
+		out.close();
+		return file;
+	}
+
+	@Test
+	public void testUTF8() throws IOException {
+		Charset utf8 = Charset.forName("UTF-8");
+		String content = "Name = \"Zo\u00eb \u20ac \ud834\udd1e\";";
+		Assert.assertEquals(content, readAll(write(content, utf8), utf8));
+	}
+
+	@Test
+	public void testUTF16() throws IOException {
+		Charset utf16 = Charset.forName("UTF-16");
+		String content = "class CIM_Test {};";
+		Assert.assertEquals(content, readAll(write(content, utf16), utf16));
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		Charset utf8 = Charset.forName("UTF-8");
+		FileInputStream in = new FileInputStream(write("", utf8));
+		try {
+			CaseInsensitiveMappedStream stream = new CaseInsensitiveMappedStream(in.getChannel(), utf8);
+			Assert.assertEquals(CaseInsensitiveMappedStream.EOF, stream.LA(1));
+		}
+		finally {
+			in.close();
+		}
+	}
+}
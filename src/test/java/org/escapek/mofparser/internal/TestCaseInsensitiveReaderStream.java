@@ -0,0 +1,73 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.antlr.runtime.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCaseInsensitiveReaderStream {
+	private String readResource(String name) throws IOException {
+		InputStream is = TestCaseInsensitiveReaderStream.class.getResourceAsStream("/org/escapek/mofparser/" + name);
+		Reader reader = new InputStreamReader(is);
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[1024];
+		int numRead;
+		while((numRead = reader.read(buf)) != -1) {
+			sb.append(buf, 0, numRead);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	@Test
+	public void testLookahead() {
+		CaseInsensitiveReaderStream stream = new CaseInsensitiveReaderStream(new StringReader("ClAsS"), 2);
+		Assert.assertEquals((int)'c', stream.LA(1));
+		Assert.assertEquals((int)'s', stream.LA(5));
+		Assert.assertEquals(CaseInsensitiveReaderStream.EOF, stream.LA(6));
+		for(int i = 0; i < 5; i++) {
+			stream.consume();
+		}
+		Assert.assertEquals("ClAsS", stream.substring(0, 4));
+		Assert.assertEquals(CaseInsensitiveReaderStream.EOF, stream.LA(1));
+	}
+
+	@Test
+	public void testSameTokensAsStringStream() throws IOException {
+		String content = readResource("CIM_ManagedElement.mof");
+		cim23Lexer expected = new cim23Lexer(new CaseInsensitiveStringStream(content));
+		//Use a tiny window to force many refills
+		StreamingLexer actual = new StreamingLexer(new CaseInsensitiveReaderStream(new StringReader(content), 16));
+		Token e;
+		do {
+			e = expected.nextToken();
+			Token a = actual.nextToken();
+			Assert.assertEquals(e.getType(), a.getType());
+			Assert.assertEquals(e.getText(), a.getText());
+			Assert.assertEquals(e.getLine(), a.getLine());
+		} while(e.getType() != Token.EOF);
+	}
+}
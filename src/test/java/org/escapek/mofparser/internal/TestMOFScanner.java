@@ -0,0 +1,175 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.escapek.mofparser.MOFParser;
+import org.escapek.mofparser.exceptions.MOFParserException;
+import org.escapek.mofparser.helpers.DefaultHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Differential tests checking that MOFScanner and the generated cim23Lexer produce
+ * identical token streams.
+ */
+public class TestMOFScanner {
+	private static final String[] WORDS = {
+		"class", "Class", "#pragma", "Qualifier", "scope", "Flavor", "Association", "Indication",
+		"property", "Schema", "any", "as", "DisableOverride", "boolean", "char16", "DateTime",
+		"real32", "real64", "sint8", "sint16", "sint32", "sint64", "String", "uint8", "uint16",
+		"uint32", "uint64", "EnableOverride", "false", "TRUE", "instance", "of", "method", "null",
+		"parameter", "ref", "REFERENCE", "restricted", "ToSubclass", "Translatable", "e", "E",
+		"CIM_ManagedElement", "InstanceID", "x", "classes", "of_", "Key2",
+		"0", "42", "-7", "+12", "0x1F", "-0XaB", "101b", "0101", "1012",
+		"\"\"", "\"C\"", "\"abc\"", "\"a\\\"b\"", "\"\\n\"", "\"line\\tone\"", "\"a\"\"b\"", "\"it's\"",
+		"// comment\n", "// other comment\r\n", "/* block */", "/* multi\nline */",
+		"\"\\x41\"", "\"a\\101b\"",
+		"\"C:\\dir\"", "\"a\\qb\"", "\"\\q\"", "\"\\\"", "\"ab\\\"",
+		"ab", "_x", "#", "#pragmas", "/", "%", "\\x4", "\\",
+		"{", "}", "(", ")", "[", "]", ";", ",", "=", ":", "://", "$", ".", "+", "-", "@", "\\n"
+	};
+	private static final String[] SEPARATORS = { " ", "  ", "\t", "\n", "\r\n", " \t " };
+
+	/**
+	 * Handler keeping scan errors, so scanning goes on as with the generated lexer
+	 */
+	private static class ErrorHandler extends DefaultHandler {
+		List<MOFParserException> errors = new ArrayList<MOFParserException>();
+
+		public void error(MOFParserException ex) {
+			errors.add(ex);
+		}
+	}
+
+	private String readResource(String name) throws IOException {
+		InputStream is = TestMOFScanner.class.getResourceAsStream(name);
+		Reader reader = new InputStreamReader(is);
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[1024];
+		int numRead;
+		while((numRead = reader.read(buf)) != -1) {
+			sb.append(buf, 0, numRead);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	private void assertSameTokens(TokenSource expected, TokenSource actual) {
+		Token e;
+		do {
+			e = expected.nextToken();
+			Token a = actual.nextToken();
+			String where = "line " + e.getLine() + ":" + e.getCharPositionInLine() + " [" + e.getText() + "]";
+			Assert.assertEquals(where, e.getType(), a.getType());
+			Assert.assertEquals(where, e.getText(), a.getText());
+			Assert.assertEquals(where, e.getChannel(), a.getChannel());
+			Assert.assertEquals(where, e.getLine(), a.getLine());
+			Assert.assertEquals(where, e.getCharPositionInLine(), a.getCharPositionInLine());
+		} while(e.getType() != Token.EOF);
+	}
+
+	private void assertSameTokens(String content) {
+		MOFScanner scanner = new MOFScanner(new CaseInsensitiveStringStream(content));
+		scanner.setErrorHandler(new ErrorHandler());
+		assertSameTokens(new cim23Lexer(new CaseInsensitiveStringStream(content)), scanner);
+	}
+
+	@Test
+	public void testResources() throws IOException {
+		assertSameTokens(readResource("/org/escapek/mofparser/CIM_ManagedElement.mof"));
+		assertSameTokens(readResource("/org/escapek/mofparser/qualifiers.mof"));
+		assertSameTokens(readResource("/org/escapek/mofparser/samples/sample.mof"));
+	}
+
+	@Test
+	public void testWindowedStream() throws IOException {
+		String content = readResource("/org/escapek/mofparser/CIM_ManagedElement.mof");
+		assertSameTokens(new cim23Lexer(new CaseInsensitiveStringStream(content)),
+				new MOFScanner(new CaseInsensitiveReaderStream(new StringReader(content), 16)));
+	}
+
+	@Test
+	public void testGeneratedCorpus() {
+		Random random = new Random(20080101L);
+		for(int doc = 0; doc < 500; doc++) {
+			StringBuilder sb = new StringBuilder();
+			for(int i = 0; i < 60; i++) {
+				sb.append(WORDS[random.nextInt(WORDS.length)]);
+				sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+			}
+			assertSameTokens(sb.toString());
+		}
+	}
+
+	@Test
+	public void testErrors() {
+		MOFScanner scanner = new MOFScanner(new CaseInsensitiveStringStream("class\n  \uFFFE Alpha /* end"));
+		ErrorHandler handler = new ErrorHandler();
+		scanner.setErrorHandler(handler);
+		while(scanner.nextToken().getType() != Token.EOF) {
+		}
+		Assert.assertEquals(2, handler.errors.size());
+		Assert.assertEquals(MOFParserException.SCAN_ERROR, handler.errors.get(0).getMessage());
+		Assert.assertEquals("2:2", handler.errors.get(0).getArg1());
+		Assert.assertEquals("2:10", handler.errors.get(1).getArg1());
+
+		scanner = new MOFScanner(new CaseInsensitiveStringStream("Name = \"C:\\dir\";"));
+		handler = new ErrorHandler();
+		scanner.setErrorHandler(handler);
+		while(scanner.nextToken().getType() != Token.EOF) {
+		}
+		Assert.assertEquals(2, handler.errors.size());
+		Assert.assertEquals("1:11", handler.errors.get(0).getArg1());
+
+		scanner = new MOFScanner(new CaseInsensitiveStringStream("class\uFFFE"));
+		Assert.assertEquals(cim23Lexer.CLASS, scanner.nextToken().getType());
+		try {
+			scanner.nextToken();
+			Assert.fail();
+		}
+		catch (MOFScanner.ScanException e) {
+			Assert.assertEquals(MOFParserException.SCAN_ERROR, e.getException().getMessage());
+		}
+	}
+
+	@Test
+	public void testParserErrors() {
+		MOFParser parser = new MOFParser();
+		parser.setFastLexer(true);
+		try {
+			parser.parse("class Alpha \uFFFE { };", new DefaultHandler());
+			Assert.fail();
+		}
+		catch (MOFParserException e) {
+			Assert.assertEquals(MOFParserException.SCAN_ERROR, e.getMessage());
+			Assert.assertEquals("1:12", e.getArg1());
+		}
+	}
+}
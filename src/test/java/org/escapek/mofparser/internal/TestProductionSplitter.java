@@ -0,0 +1,59 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestProductionSplitter {
+	@Test
+	public void testSplitAtProductionBoundaries() {
+		String first = "class A { string B = \"x;y\"; };";
+		String second = "\n// comment;\ninstance of A { B = \"}\"; };";
+		String third = "\n/* ; { */ class C { };";
+		String content = first + second + third;
+		List<ProductionSplitter.Chunk> chunks = ProductionSplitter.split(content, 1);
+		Assert.assertEquals(3, chunks.size());
+		Assert.assertEquals(first, content.substring(chunks.get(0).start, chunks.get(0).end));
+		Assert.assertEquals(second, content.substring(chunks.get(1).start, chunks.get(1).end));
+		Assert.assertEquals(third, content.substring(chunks.get(2).start, chunks.get(2).end));
+		Assert.assertEquals(1, chunks.get(1).line);
+		Assert.assertEquals(first.length(), chunks.get(1).charPositionInLine);
+		Assert.assertEquals(3, chunks.get(2).line);
+	}
+
+	@Test
+	public void testTrailingCommentsInLastChunk() {
+		String content = "class A { };\nclass B { };\n// end;\n";
+		List<ProductionSplitter.Chunk> chunks = ProductionSplitter.split(content, 1);
+		Assert.assertEquals(2, chunks.size());
+		Assert.assertEquals(content.length(), chunks.get(1).end);
+	}
+
+	@Test
+	public void testChunkSize() {
+		String content = "class A { };class B { };class C { };";
+		List<ProductionSplitter.Chunk> chunks = ProductionSplitter.split(content, 20);
+		Assert.assertEquals(2, chunks.size());
+		Assert.assertEquals(24, chunks.get(0).end);
+		Assert.assertEquals(content.length(), chunks.get(1).end);
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestStringEscapes {
+	@Test
+	public void testDecodeWithoutEscapes() {
+		String text = "plain";
+		Assert.assertSame(text, StringEscapes.decode(text));
+		Assert.assertEquals("plain", StringEscapes.decode("\"plain\""));
+		Assert.assertEquals("", StringEscapes.decode("\"\""));
+	}
+
+	@Test
+	public void testDecodeEscapes() {
+		Assert.assertEquals("a\nb\tc\u000Bd\be\rf\fg\u0007", 
+				StringEscapes.decode("\"a\\nb\\tc\\vd\\be\\rf\\fg\\a\""));
+		Assert.assertEquals("\\?'\"", StringEscapes.decode("\"\\\\\\?\\'\\\"\""));
+		Assert.assertEquals("\u0000\u0017\u0003x", StringEscapes.decode("\\0\\27\\3x"));
+		Assert.assertEquals("A\u00e9\u20acZ", StringEscapes.decode("\\x41\\xe9\\x20acZ"));
+		Assert.assertEquals("x", StringEscapes.decode("\\x"));
+	}
+
+	@Test
+	public void testDecodeConcatenated() {
+		Assert.assertEquals("abcdef", StringEscapes.decode("\"abc\"\"def\""));
+		Assert.assertEquals("ab\"c", StringEscapes.decode("\"ab\\\"\"\"c\""));
+	}
+
+	@Test
+	public void testEncode() {
+		String text = "plain";
+		Assert.assertSame(text, StringEscapes.encode(text));
+		Assert.assertEquals("a\\\"b\\\\c\\nd\\x0001", StringEscapes.encode("a\"b\\c\nd\u0001"));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		StringBuilder all = new StringBuilder();
+		for(char c = 0; c < 0x100; c++) {
+			all.append(c);
+		}
+		String value = all.toString();
+		Assert.assertEquals(value, StringEscapes.decode("\"" + StringEscapes.encode(value) + "\""));
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2008 EscapeK
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ * 
+ * --------------------------------------------------------------------------
+ * $Id$
+ * --------------------------------------------------------------------------
+ */
+package org.escapek.mofparser.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.tree.CommonTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestWindowedTokenStream {
+	private String readResource(String name) throws IOException {
+		InputStream is = TestWindowedTokenStream.class.getResourceAsStream("/org/escapek/mofparser/" + name);
+		Reader reader = new InputStreamReader(is);
+		StringBuilder sb = new StringBuilder();
+		char[] buf = new char[1024];
+		int numRead;
+		while((numRead = reader.read(buf)) != -1) {
+			sb.append(buf, 0, numRead);
+		}
+		reader.close();
+		return sb.toString();
+	}
+
+	@Test
+	public void testLookahead() {
+		WindowedTokenStream stream = new WindowedTokenStream(
+				new cim23Lexer(new CaseInsensitiveStringStream("class Test { };")), 2);
+		Assert.assertEquals(cim23Parser.CLASS, stream.LA(1));
+		Assert.assertEquals(cim23Parser.IDENTIFIER, stream.LA(2));
+		Assert.assertEquals(Token.EOF, stream.LA(6));
+		Assert.assertNull(stream.LT(-1));
+		int marker = stream.mark();
+		stream.consume();
+		stream.consume();
+		Assert.assertEquals("Test", stream.LT(-1).getText());
+		Assert.assertEquals("class", stream.LT(-2).getText());
+		stream.rewind(marker);
+		Assert.assertEquals(cim23Parser.CLASS, stream.LA(1));
+		for(int i = 0; i < 5; i++) {
+			stream.consume();
+		}
+		Assert.assertEquals(Token.EOF, stream.LA(1));
+		Assert.assertEquals(";", stream.LT(-1).getText());
+	}
+
+	@Test
+	public void testSameTokensAsCommonTokenStream() throws IOException {
+		String content = readResource("qualifiers.mof");
+		CommonTokenStream expected = new CommonTokenStream(new cim23Lexer(new CaseInsensitiveStringStream(content)));
+		WindowedTokenStream actual = new WindowedTokenStream(new cim23Lexer(new CaseInsensitiveStringStream(content)), 4);
+		while(expected.LA(1) != Token.EOF) {
+			Assert.assertEquals(expected.LA(1), actual.LA(1));
+			Assert.assertEquals(expected.LA(3), actual.LA(3));
+			Assert.assertEquals(expected.LT(1).getText(), actual.LT(1).getText());
+			Assert.assertEquals(expected.index(), actual.index());
+			expected.consume();
+			actual.consume();
+		}
+		Assert.assertEquals(Token.EOF, actual.LA(1));
+	}
+
+	@Test
+	public void testDiscardOffChannelTokens() {
+		WindowedTokenStream stream = new WindowedTokenStream(
+				new cim23Lexer(new CaseInsensitiveStringStream("// comment\nclass /* c */ Test")), 2);
+		stream.discardOffChannelTokens(true);
+		Assert.assertEquals(0, stream.index());
+		Assert.assertEquals("class", stream.LT(1).getText());
+		Assert.assertEquals("Test", stream.get(1).getText());
+	}
+
+	@Test
+	public void testSameTreeAsCommonTokenStream() throws Exception {
+		String content = readResource("qualifiers.mof");
+		cim23Parser expected = new cim23Parser(new CommonTokenStream(
+				new cim23Lexer(new CaseInsensitiveStringStream(content))));
+		WindowedTokenStream tokens = new WindowedTokenStream(
+				new cim23Lexer(new CaseInsensitiveStringStream(content)), 2);
+		tokens.discardOffChannelTokens(true);
+		cim23Parser actual = new cim23Parser(tokens);
+		CommonTree expectedTree = (CommonTree)expected.mofSpecification().getTree();
+		CommonTree actualTree = (CommonTree)actual.mofSpecification().getTree();
+		Assert.assertEquals(expectedTree.toStringTree(), actualTree.toStringTree());
+	}
+}